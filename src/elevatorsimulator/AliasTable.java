@@ -0,0 +1,107 @@
+package elevatorsimulator;
+
+/**
+ * Represents a discrete distribution over the indices 0..n-1 that can be sampled in constant time
+ * using the alias method (Vose). The table is immutable and can be shared between simulators.
+ */
+public class AliasTable {
+	private final double[] probabilities;
+	private final int[] aliases;
+	
+	/**
+	 * Creates a new alias table
+	 * @param weights The weights of the indices. The weights are normalized.
+	 */
+	public AliasTable(double[] weights) {
+		int n = weights.length;
+		if (n == 0) {
+			throw new IllegalArgumentException("There must be at least one weight.");
+		}
+		
+		double totalWeight = 0;
+		for (double weight : weights) {
+			if (weight < 0 || Double.isNaN(weight)) {
+				throw new IllegalArgumentException("The weights must be non-negative.");
+			}
+			
+			totalWeight += weight;
+		}
+		
+		if (totalWeight <= 0 || Double.isInfinite(totalWeight)) {
+			throw new IllegalArgumentException("The total weight must be positive.");
+		}
+		
+		this.probabilities = new double[n];
+		this.aliases = new int[n];
+		
+		double[] scaled = new double[n];
+		int[] small = new int[n];
+		int[] large = new int[n];
+		int numSmall = 0;
+		int numLarge = 0;
+		
+		for (int i = 0; i < n; i++) {
+			scaled[i] = weights[i] * n / totalWeight;
+			
+			if (scaled[i] < 1.0) {
+				small[numSmall++] = i;
+			} else {
+				large[numLarge++] = i;
+			}
+		}
+		
+		while (numSmall > 0 && numLarge > 0) {
+			int less = small[--numSmall];
+			int more = large[--numLarge];
+			
+			this.probabilities[less] = scaled[less];
+			this.aliases[less] = more;
+			
+			scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+			if (scaled[more] < 1.0) {
+				small[numSmall++] = more;
+			} else {
+				large[numLarge++] = more;
+			}
+		}
+		
+		//What is left is 1 up to rounding errors
+		while (numLarge > 0) {
+			int index = large[--numLarge];
+			this.probabilities[index] = 1.0;
+			this.aliases[index] = index;
+		}
+		
+		while (numSmall > 0) {
+			int index = small[--numSmall];
+			this.probabilities[index] = 1.0;
+			this.aliases[index] = index;
+		}
+	}
+	
+	/**
+	 * Returns the number of indices
+	 */
+	public int size() {
+		return this.probabilities.length;
+	}
+	
+	/**
+	 * Samples an index
+	 * @param randomValue A uniformly distributed value in [0, 1)
+	 */
+	public int sample(double randomValue) {
+		double scaled = randomValue * this.probabilities.length;
+		int index = (int)scaled;
+		
+		if (index >= this.probabilities.length) {
+			index = this.probabilities.length - 1;
+		}
+		
+		if (scaled - index < this.probabilities[index]) {
+			return index;
+		} else {
+			return this.aliases[index];
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package elevatorsimulator;
+
+/**
+ * Counts down the time until the next arrival on a floor and restarts the count when a new interval of the traffic profile starts.
+ * Both the floors and the generator of arrival schedules use it, so that a generated schedule has the arrivals that the floors generate.
+ */
+class ArrivalCountdown {
+	private final long intervalLength;
+	
+	private long timeLeft = 0;
+	private boolean isFirst = true;
+	private boolean hasInterval = false;
+	private long intervalStart = 0;
+	
+	/**
+	 * The arrivals that are counted down
+	 */
+	interface Arrivals {
+		/**
+		 * Starts the interval that contains the given time
+		 * @param time The time
+		 */
+		void startInterval(long time);
+		
+		/**
+		 * Draws the time until the next arrival in the current interval
+		 */
+		long timeToNextArrival();
+		
+		/**
+		 * Creates an arrival at the given time
+		 * @param time The time
+		 */
+		void arrive(long time);
+	}
+	
+	/**
+	 * Creates a new countdown
+	 * @param intervalLength The length of an interval of the traffic profile
+	 */
+	public ArrivalCountdown(long intervalLength) {
+		this.intervalLength = intervalLength;
+	}
+	
+	/**
+	 * Starts a new interval if at least the length of an interval has passed since the last one started
+	 * @param arrivals The arrivals
+	 * @param timeNow The current time
+	 * @return True if a new interval was started
+	 */
+	public boolean updateInterval(Arrivals arrivals, long timeNow) {
+		if (this.hasInterval && timeNow - this.intervalStart < this.intervalLength) {
+			return false;
+		}
+		
+		arrivals.startInterval(timeNow);
+		this.hasInterval = true;
+		this.intervalStart = timeNow;
+		this.timeLeft = arrivals.timeToNextArrival();
+		return true;
+	}
+	
+	/**
+	 * Counts down the time until the next arrival
+	 * @param arrivals The arrivals
+	 * @param timeNow The current time
+	 * @param duration The elapsed time since the last time step
+	 * @return True if a passenger arrived
+	 */
+	public boolean countDown(Arrivals arrivals, long timeNow, long duration) {
+		if (this.isFirst) {
+			//The arrival time drawn when the first interval started is replaced by a new one
+			this.timeLeft = arrivals.timeToNextArrival();
+			this.isFirst = false;
+			return false;
+		}
+		
+		this.timeLeft -= duration;
+		
+		if (this.timeLeft <= 0) {
+			arrivals.arrive(timeNow);
+			this.timeLeft = arrivals.timeToNextArrival();
+			return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Indicates if an interval has been started
+	 */
+	public boolean hasInterval() {
+		return this.hasInterval;
+	}
+	
+	/**
+	 * Returns the time when the next interval starts
+	 */
+	public long nextIntervalTime() {
+		return this.intervalStart + this.intervalLength;
+	}
+	
+	/**
+	 * Returns the time of the next arrival, if the time left is counted down by the duration of each simulated time step
+	 * @param timeNow The current time
+	 */
+	public long nextArrivalTime(long timeNow) {
+		if (this.isFirst) {
+			return timeNow;
+		}
+		
+		return timeNow + this.timeLeft;
+	}
+	
+	/**
+	 * Resets the countdown
+	 */
+	public void reset() {
+		this.timeLeft = 0;
+		this.isFirst = true;
+		this.hasInterval = false;
+		this.intervalStart = 0;
+	}
+}
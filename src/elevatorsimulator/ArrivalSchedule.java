@@ -0,0 +1,337 @@
+package elevatorsimulator;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Represents a schedule of passenger arrivals, stored for each floor sorted by the time of arrival.
+ * The arrivals are stored as primitives and the passengers are created when released, so the schedule
+ * can be replayed again after a reset.
+ */
+public class ArrivalSchedule {
+	private final FloorArrivals[] floors;
+	
+	private static final Comparator<Passenger> ARRIVAL_ORDER = Comparator.comparingLong(Passenger::getTimeOfArrival);
+	
+	/**
+	 * The arrivals on a floor
+	 */
+	private static class FloorArrivals {
+		public long[] times = new long[16];
+		public long[] ids = new long[16];
+		public int[] destinationFloors = new int[16];
+		public int size = 0;
+		public int cursor = 0;
+		public boolean sorted = true;
+		
+		public PriorityQueue<Passenger> injected;
+		
+		/**
+		 * Adds the given arrival
+		 */
+		public void add(long id, int destinationFloor, long time) {
+			if (this.size == this.times.length) {
+				int capacity = this.size * 2;
+				this.times = Arrays.copyOf(this.times, capacity);
+				this.ids = Arrays.copyOf(this.ids, capacity);
+				this.destinationFloors = Arrays.copyOf(this.destinationFloors, capacity);
+			}
+			
+			if (this.size > 0 && time < this.times[this.size - 1]) {
+				this.sorted = false;
+			}
+			
+			this.times[this.size] = time;
+			this.ids[this.size] = id;
+			this.destinationFloors[this.size] = destinationFloor;
+			this.size++;
+		}
+		
+		/**
+		 * Sorts the arrivals by time, keeping the order of arrivals at the same time
+		 */
+		public void sort() {
+			if (this.sorted) {
+				return;
+			}
+			
+			Integer[] order = new Integer[this.size];
+			for (int i = 0; i < order.length; i++) {
+				order[i] = i;
+			}
+			
+			Arrays.sort(order, Comparator.comparingLong(i -> this.times[i]));
+			
+			long[] times = new long[this.size];
+			long[] ids = new long[this.size];
+			int[] destinationFloors = new int[this.size];
+			for (int i = 0; i < order.length; i++) {
+				times[i] = this.times[order[i]];
+				ids[i] = this.ids[order[i]];
+				destinationFloors[i] = this.destinationFloors[order[i]];
+			}
+			
+			this.times = times;
+			this.ids = ids;
+			this.destinationFloors = destinationFloors;
+			this.sorted = true;
+		}
+		
+		/**
+		 * Returns the time of the next scheduled arrival
+		 */
+		public long nextScheduledTime() {
+			this.sort();
+			
+			if (this.cursor < this.size) {
+				return this.times[this.cursor];
+			}
+			
+			return Long.MAX_VALUE;
+		}
+		
+		/**
+		 * Returns the time of the next injected arrival
+		 */
+		public long nextInjectedTime() {
+			if (this.injected != null && !this.injected.isEmpty()) {
+				return this.injected.peek().getTimeOfArrival();
+			}
+			
+			return Long.MAX_VALUE;
+		}
+	}
+	
+	/**
+	 * Creates a new empty schedule
+	 * @param numFloors The number of floors
+	 */
+	public ArrivalSchedule(int numFloors) {
+		this.floors = new FloorArrivals[numFloors];
+		for (int i = 0; i < numFloors; i++) {
+			this.floors[i] = new FloorArrivals();
+		}
+	}
+	
+	/**
+	 * Returns a copy of the scheduled arrivals, starting from the first arrival and without the injected passengers.
+	 * Each simulator that replays the same arrivals needs its own copy.
+	 */
+	public ArrivalSchedule copy() {
+		ArrivalSchedule copy = new ArrivalSchedule(this.floors.length);
+		
+		for (int i = 0; i < this.floors.length; i++) {
+			FloorArrivals arrivals = this.floors[i];
+			arrivals.sort();
+			
+			FloorArrivals copyArrivals = copy.floors[i];
+			copyArrivals.times = Arrays.copyOf(arrivals.times, arrivals.size);
+			copyArrivals.ids = Arrays.copyOf(arrivals.ids, arrivals.size);
+			copyArrivals.destinationFloors = Arrays.copyOf(arrivals.destinationFloors, arrivals.size);
+			copyArrivals.size = arrivals.size;
+		}
+		
+		return copy;
+	}
+	
+	/**
+	 * Generates the arrivals of the given scenario from the given seed. The arrivals are the same as the ones
+	 * the floors generate when the settings use common random numbers, including that they happen at time steps.
+	 * The passengers are numbered in the order that they arrive.
+	 * @param scenario The scenario
+	 * @param settings The settings
+	 * @param seed The seed
+	 */
+	public static ArrivalSchedule generate(Scenario scenario, SimulatorSettings settings, long seed) {
+		Building building = scenario.createBuilding();
+		Floor[] floors = building.getFloors();
+		TrafficProfile trafficProfile = scenario.getTrafficProfile();
+		SimulatorClock clock = new SimulatorClock(settings.getTimeStep());
+		long timeStep = clock.getTimeStep();
+		long endTime = clock.secondsToTime(settings.getSimulationTimeInSec());
+		
+		ArrivalSchedule schedule = new ArrivalSchedule(floors.length);
+		SplittableRandom streams = new SplittableRandom(seed);
+		
+		for (Floor floor : floors) {
+			FloorArrivals floorArrivals = schedule.floors[floor.getFloorNumber()];
+			SplittableRandom arrivalRandom = streams.split();
+			SplittableRandom destinationRandom = streams.split();
+			ArrivalCountdown countdown = new ArrivalCountdown(trafficProfile.length());
+			
+			ArrivalCountdown.Arrivals arrivals = new ArrivalCountdown.Arrivals() {
+				private TrafficProfile.Interval interval;
+				private AliasTable destinationFloorTable;
+			
+				@Override
+				public void startInterval(long time) {
+					this.interval = trafficProfile.getIntervalData(time);
+					this.destinationFloorTable = Floor.createDestinationFloorTable(building, floor, this.interval);
+				}
+				
+				@Override
+				public long timeToNextArrival() {
+					return floor.timeToNextArrival(building, this.interval, clock, arrivalRandom.nextDouble());
+				}
+				
+				@Override
+				public void arrive(long time) {
+					floorArrivals.add(0, this.destinationFloorTable.sample(destinationRandom.nextDouble()), time);
+				}
+			};
+			
+			long time = 0;
+			long duration = timeStep;
+			
+			while (time < endTime) {
+				countdown.updateInterval(arrivals, time);
+				countdown.countDown(arrivals, time, duration);
+				
+				//Like the event-driven simulator, skip to the time step before the next event and then simulate the event,
+				//so that a new interval is counted down by one time step
+				long eventTime = Math.min(countdown.nextIntervalTime(), countdown.nextArrivalTime(time));
+				long timeLeft = eventTime - (time + timeStep);
+				long numSteps = 1;
+				
+				if (timeLeft > 0) {
+					numSteps += (timeLeft + timeStep - 1) / timeStep - 1;
+				}
+				
+				time += numSteps * timeStep;
+				duration = numSteps * timeStep;
+			}
+		}
+		
+		schedule.numberArrivals();
+		return schedule;
+	}
+	
+	/**
+	 * Numbers the passengers in the order of arrival. Passengers that arrive at the same time are numbered by floor.
+	 */
+	private void numberArrivals() {
+		int[] cursors = new int[this.floors.length];
+		long id = 0;
+		
+		while (true) {
+			int nextFloor = -1;
+			for (int i = 0; i < this.floors.length; i++) {
+				FloorArrivals arrivals = this.floors[i];
+				
+				if (cursors[i] < arrivals.size
+					&& (nextFloor == -1 || arrivals.times[cursors[i]] < this.floors[nextFloor].times[cursors[nextFloor]])) {
+					nextFloor = i;
+				}
+			}
+			
+			if (nextFloor == -1) {
+				break;
+			}
+			
+			this.floors[nextFloor].ids[cursors[nextFloor]++] = id++;
+		}
+	}
+	
+	/**
+	 * Returns the arrivals for the given floor
+	 * @param floor The floor number
+	 */
+	private FloorArrivals getFloor(int floor) {
+		if (floor < 0 || floor >= this.floors.length) {
+			throw new IllegalArgumentException("The floor " + floor + " is not in the building.");
+		}
+		
+		return this.floors[floor];
+	}
+	
+	/**
+	 * Adds an arrival to the schedule. The arrivals do not have to be added in order of time.
+	 * @param id The id of the passenger
+	 * @param arrivalFloor The arrival floor
+	 * @param destinationFloor The destination floor
+	 * @param time The time of arrival
+	 */
+	public void add(long id, int arrivalFloor, int destinationFloor, long time) {
+		this.getFloor(destinationFloor);
+		this.getFloor(arrivalFloor).add(id, destinationFloor, time);
+	}
+	
+	/**
+	 * Injects the given passenger into the schedule. Injected passengers are not kept after a reset.
+	 * @param passenger The passenger
+	 */
+	public void inject(Passenger passenger) {
+		FloorArrivals floor = this.getFloor(passenger.getArrivalFloor());
+		
+		if (floor.injected == null) {
+			floor.injected = new PriorityQueue<Passenger>(ARRIVAL_ORDER);
+		}
+		
+		floor.injected.add(passenger);
+	}
+	
+	/**
+	 * Returns the time of the next arrival on the given floor, or Long.MAX_VALUE if there are none
+	 * @param floor The floor number
+	 */
+	public long nextArrivalTime(int floor) {
+		FloorArrivals arrivals = this.floors[floor];
+		return Math.min(arrivals.nextScheduledTime(), arrivals.nextInjectedTime());
+	}
+	
+	/**
+	 * Releases the next arrival on the given floor that is due at the given time
+	 * @param floor The floor number
+	 * @param clock The simulator clock
+	 * @return The passenger or null if no arrival is due
+	 */
+	public Passenger poll(int floor, SimulatorClock clock) {
+		FloorArrivals arrivals = this.floors[floor];
+		long timeNow = clock.timeNow();
+		long scheduledTime = arrivals.nextScheduledTime();
+		long injectedTime = arrivals.nextInjectedTime();
+		
+		if (injectedTime <= timeNow && injectedTime < scheduledTime) {
+			return arrivals.injected.poll();
+		}
+		
+		if (scheduledTime <= timeNow) {
+			int index = arrivals.cursor++;
+			return new Passenger(
+				arrivals.ids[index],
+				floor,
+				arrivals.destinationFloors[index],
+				1,
+				arrivals.times[index]);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Returns the total number of scheduled arrivals
+	 */
+	public int size() {
+		int size = 0;
+		for (FloorArrivals floor : this.floors) {
+			size += floor.size;
+		}
+		
+		return size;
+	}
+	
+	/**
+	 * Resets the schedule to the first arrival and removes the injected passengers
+	 */
+	public void reset() {
+		for (FloorArrivals floor : this.floors) {
+			floor.cursor = 0;
+			
+			if (floor.injected != null) {
+				floor.injected.clear();
+			}
+		}
+	}
+}
@@ -1,4 +1,6 @@
 package elevatorsimulator;
+import java.util.BitSet;
+
 /**
  * Represents a building
  * @author Anton Jansson and Kristoffer Uggla Lingvall
@@ -7,6 +9,9 @@ package elevatorsimulator;
 public class Building {
 	private final Floor[] floors;
 	private final Elevator[] elevators;
+	private final BitSet[] boardingCars;
+	private final ElevatorSnapshot elevatorSnapshot;
+	private boolean elevatorSnapshotStale = true;
 	
 	/**
 	 * The lobby floor
@@ -29,7 +34,66 @@ public class Building {
 		
 		this.elevators = new Elevator[numElevatorCars];
 		for (int i = 0; i < this.elevators.length; i++) {
-			this.elevators[i] = new Elevator(i, startFloor, elevatorConfiguration);
+			this.elevators[i] = new Elevator(i, startFloor, floors.length, elevatorConfiguration);
+		}
+		
+		this.boardingCars = new BitSet[floors.length];
+		for (int i = 0; i < this.boardingCars.length; i++) {
+			this.boardingCars[i] = new BitSet(numElevatorCars);
+		}
+		
+		this.rebuildBoardingCars();
+		
+		this.elevatorSnapshot = new ElevatorSnapshot(numElevatorCars);
+	}
+	
+	/**
+	 * Returns the snapshot of the elevator cars. The snapshot is taken by the first call after the cars were updated
+	 * in the last time step, so time steps where no scheduler reads it cost nothing.
+	 */
+	public ElevatorSnapshot getElevatorSnapshot() {
+		if (this.elevatorSnapshotStale) {
+			this.elevatorSnapshot.update(this.elevators);
+			this.elevatorSnapshotStale = false;
+		}
+		
+		return this.elevatorSnapshot;
+	}
+	
+	/**
+	 * Returns the ids of the elevator cars that are open for boarding at the given floor.
+	 * The set is owned by the building and must not be modified.
+	 * @param floor The floor
+	 */
+	BitSet getBoardingCars(int floor) {
+		return this.boardingCars[floor];
+	}
+	
+	/**
+	 * Updates the boarding cars for the given elevator car after its state has changed.
+	 * The floor of a car only changes while it is moving, so it is the same when the car enters and leaves the set.
+	 * @param elevator The elevator car
+	 */
+	void elevatorStateChanged(Elevator elevator) {
+		BitSet cars = this.boardingCars[elevator.getFloor()];
+		
+		if (elevator.isOpenForBoarding()) {
+			cars.set(elevator.getId());
+		} else {
+			cars.clear(elevator.getId());
+		}
+	}
+	
+	/**
+	 * Rebuilds the boarding cars from the current state of the elevator cars
+	 */
+	private void rebuildBoardingCars() {
+		for (BitSet cars : this.boardingCars) {
+			cars.clear();
+		}
+		
+		for (Elevator elevator : this.elevators) {
+			this.elevatorStateChanged(elevator);
 		}
 	}
 	
@@ -81,6 +145,8 @@ public class Building {
 		for (int i = 0; i < this.elevators.length; i++) {
 			this.elevators[i].update(simulator);
 		}
+		
+		this.elevatorSnapshotStale = true;
 	}
 	
 	/**
@@ -94,5 +160,8 @@ public class Building {
 		for (Elevator elevator : this.elevators) {
 			elevator.reset();
 		}
+		
+		this.rebuildBoardingCars();
+		this.elevatorSnapshotStale = true;
 	}
 }
@@ -0,0 +1,72 @@
+package elevatorsimulator;
+
+/**
+ * A log that prints readable lines to the standard output
+ */
+public class ConsoleLog implements SimulatorLog {
+	private final Level minLevel;
+	
+	/**
+	 * Creates a new console log
+	 * @param minLevel The lowest level that is printed
+	 */
+	public ConsoleLog(Level minLevel) {
+		this.minLevel = minLevel;
+	}
+	
+	@Override
+	public boolean isEnabled(Level level) {
+		return level.compareTo(this.minLevel) >= 0;
+	}
+	
+	/**
+	 * Prints the given line
+	 * @param clock The simulator clock
+	 * @param elevatorId The id of the elevator car or NO_ELEVATOR
+	 * @param line The line
+	 */
+	private void print(SimulatorClock clock, int elevatorId, String line) {
+		double simulatedTime = (double)clock.elapsedSinceRealTime(0) / SimulatorClock.NANOSECONDS_PER_SECOND;
+		
+		if (elevatorId == NO_ELEVATOR) {
+			System.out.println(clock.formattedTime(simulatedTime) + ": " + line);
+		} else {
+			System.out.println(clock.formattedTime(simulatedTime) + ": Elevator " + elevatorId + ": " + line);
+		}
+	}
+	
+	@Override
+	public void message(Simulator simulator, Level level, int elevatorId, String line) {
+		if (this.isEnabled(level)) {
+			this.print(simulator.getClock(), elevatorId, line);
+		}
+	}
+	
+	@Override
+	public void event(Simulator simulator, EventType type, Passenger passenger, int floor, int elevatorId) {
+		if (!this.isEnabled(Level.INFO)) {
+			return;
+		}
+		
+		SimulatorClock clock = simulator.getClock();
+		
+		switch (type) {
+		case ARRIVAL:
+			this.print(clock, elevatorId,
+				"Generated passenger #" + passenger.getId() + " at floor "
+				+ floor + " with the destination: "
+				+ passenger.getDestinationFloor() + ".");
+			break;
+		case PICKUP:
+			this.print(clock, elevatorId,
+				"Picked up passenger #" + passenger.getId() + " at floor "
+				+ floor + " with the destination of "
+				+ passenger.getDestinationFloor() + ".");
+			break;
+		case EXIT:
+			this.print(clock, elevatorId, "Passenger #" + passenger.getId() + " exited at floor " + floor + ".");
+			this.print(clock, NO_ELEVATOR, "Passenger #" + passenger.getId() + " stats: " + passenger.getStats(clock) + ".");
+			break;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 package elevatorsimulator;
-import java.util.LinkedList;
+import java.util.BitSet;
 import java.util.Queue;
 
 /**
@@ -9,9 +9,12 @@ import java.util.Queue;
  */
 public class ControlSystem {
 	private final Simulator simulator;
-	private final Queue<Passenger> hallCallQueue = new LinkedList<Passenger>();
+	private final HallCallRegistry hallCalls;
 	private final SchedulingAlgorithm scheduler;
 	
+	private final BitSet changedElevators = new BitSet();
+	private boolean hallCallsChanged = true;
+	
 	/**
 	 * Creates a new control system for the given simulator
 	 * @param simulator The simulator
@@ -20,6 +23,7 @@ public class ControlSystem {
 	public ControlSystem(Simulator simulator, SchedulingAlgorithm scheduler) {
 		this.simulator = simulator;
 		this.scheduler = scheduler;
+		this.hallCalls = new HallCallRegistry(simulator.getBuilding().numFloors());
 		
 		for (Elevator elevator : simulator.getBuilding().getElevatorCars()) {
 			this.elevatorIdle(elevator);
@@ -41,10 +45,26 @@ public class ControlSystem {
 	}
 	
 	/**
-	 * Returns the queue for the passenger waiting to be handled
+	 * Returns a read-only queue view of the passengers waiting to be handled, in arrival order
 	 */
 	public Queue<Passenger> getHallQueue() {
-		return this.hallCallQueue;
+		return this.hallCalls.asQueue();
+	}
+	
+	/**
+	 * Returns the registry of the hall calls waiting to be handled
+	 */
+	public HallCallRegistry getHallCalls() {
+		return this.hallCalls;
+	}
+	
+	/**
+	 * Returns the number of passengers waiting on the given floor to travel in the given direction
+	 * @param floor The floor
+	 * @param direction The direction
+	 */
+	public int getNumWaiting(int floor, Direction direction) {
+		return this.hallCalls.count(floor, direction);
 	}
 	
 	/**
@@ -52,7 +72,8 @@ public class ControlSystem {
 	 * @param passenger The passenger that made the call
 	 */
 	public void handleHallCall(Passenger passenger) {
-		this.hallCallQueue.add(passenger);
+		this.hallCalls.add(passenger);
+		this.hallCallsChanged = true;
 		this.scheduler.passengerArrived(this.simulator, passenger);
 	}
 	
@@ -62,7 +83,8 @@ public class ControlSystem {
 	 * @param passenger The passenger
 	 */
 	public void hallCallHandled(Elevator elevator, Passenger passenger) {
-		this.hallCallQueue.remove(passenger);
+		this.hallCalls.remove(passenger);
+		this.hallCallsChanged = true;
 		this.scheduler.passengerBoarded(this.simulator, elevator, passenger);
 	}
 	
@@ -72,9 +94,33 @@ public class ControlSystem {
 	 * @param passenger The passenger
 	 */
 	public void passengerExited(Elevator elevator, Passenger passenger) {
+		this.elevatorChanged(elevator);
 		this.scheduler.passengerExited(this.simulator, elevator, passenger);
 	}
 	
+	/**
+	 * Marks that the given elevator car has changed state or passed a floor
+	 * @param elevator The elevator car
+	 */
+	public void elevatorChanged(Elevator elevator) {
+		this.changedElevators.set(elevator.getId());
+	}
+	
+	/**
+	 * Indicates if the elevator car has changed since the last update of the scheduler
+	 * @param elevator The elevator car
+	 */
+	public boolean hasChanged(Elevator elevator) {
+		return this.changedElevators.get(elevator.getId());
+	}
+	
+	/**
+	 * Indicates if anything has changed since the last update of the scheduler
+	 */
+	public boolean hasChanges() {
+		return this.hallCallsChanged || !this.changedElevators.isEmpty();
+	}
+	
 	/**
 	 * Marks that the given elevator car is idle
 	 * @param elevator The elevator car
@@ -91,11 +137,29 @@ public class ControlSystem {
 		this.scheduler.onTurned(simulator, elevator);
 	}
 	
+	/**
+	 * Indicates if the control system has work to do in the next time step
+	 */
+	public boolean hasPendingWork() {
+		if (this.scheduler.isChangeDriven()) {
+			return this.hasChanges() || this.scheduler.hasPendingWork(this.simulator);
+		}
+		
+		return !this.hallCalls.isEmpty() || this.scheduler.hasPendingWork(this.simulator);
+	}
+	
 	/**
 	 * Updates the control system
 	 * @param duration The elapsed time since the last time step
 	 */
-	public void update(long duration) {		
+	public void update(long duration) {
+		if (this.scheduler.isChangeDriven() && !this.hasChanges()) {
+			return;
+		}
+		
+		//Cleared before the update, so that changes made by the scheduler are seen in the next time step
+		this.hallCallsChanged = false;
+		this.changedElevators.clear();
 		this.scheduler.update(simulator);
 	}
 	
@@ -103,6 +167,8 @@ public class ControlSystem {
 	 * Resets the control system
 	 */
 	public void reset() {
-		this.hallCallQueue.clear();
+		this.hallCalls.clear();
+		this.hallCallsChanged = true;
+		this.changedElevators.clear();
 	}
 }
@@ -0,0 +1,100 @@
+package elevatorsimulator;
+
+import java.util.Random;
+
+import elevatorsimulator.schedulers.ThreePassageGroupElevator;
+
+/**
+ * Measures the time it takes a scheduler to dispatch a new hall call, for different numbers of queued hall calls
+ */
+public class DispatchBenchmark {
+	private final Scenario scenario;
+	private final SchedulerCreator schedulerCreator;
+	private final int numMeasuredCalls;
+	private final int numRepetitions;
+	
+	/**
+	 * Creates a new benchmark
+	 * @param scenario The scenario
+	 * @param schedulerCreator The scheduler
+	 * @param numMeasuredCalls The number of measured calls for each repetition
+	 * @param numRepetitions The number of repetitions
+	 */
+	public DispatchBenchmark(Scenario scenario, SchedulerCreator schedulerCreator, int numMeasuredCalls, int numRepetitions) {
+		this.scenario = scenario;
+		this.schedulerCreator = schedulerCreator;
+		this.numMeasuredCalls = numMeasuredCalls;
+		this.numRepetitions = numRepetitions;
+	}
+	
+	/**
+	 * Creates a random hall call
+	 * @param simulator The simulator
+	 * @param random The random generator
+	 */
+	private Passenger randomHallCall(Simulator simulator, Random random) {
+		int numFloors = simulator.getBuilding().numFloors();
+		int arrivalFloor = random.nextInt(numFloors);
+		int destinationFloor = random.nextInt(numFloors - 1);
+		
+		if (destinationFloor >= arrivalFloor) {
+			destinationFloor++;
+		}
+		
+		return new Passenger(simulator.nextPassengerId(), arrivalFloor, destinationFloor, 1, simulator.getClock());
+	}
+	
+	/**
+	 * Measures the average dispatch time in nanoseconds when the given number of hall calls are queued
+	 * @param numQueuedCalls The number of queued hall calls
+	 * @param seed The random seed
+	 */
+	public double measure(int numQueuedCalls, long seed) {
+		Random random = new Random(seed);
+		long totalTime = 0;
+		
+		for (int i = 0; i < this.numRepetitions; i++) {
+			Simulator simulator = new Simulator(this.scenario, new SimulatorSettings(0.01, 60), this.schedulerCreator, false, seed);
+			simulator.setLog(SimulatorLog.NONE);
+			ControlSystem controlSystem = simulator.getControlSystem();
+			
+			for (int j = 0; j < numQueuedCalls; j++) {
+				controlSystem.handleHallCall(this.randomHallCall(simulator, random));
+			}
+			
+			Passenger[] calls = new Passenger[this.numMeasuredCalls];
+			for (int j = 0; j < calls.length; j++) {
+				calls[j] = this.randomHallCall(simulator, random);
+			}
+			
+			long startTime = System.nanoTime();
+			for (Passenger call : calls) {
+				controlSystem.handleHallCall(call);
+			}
+			totalTime += System.nanoTime() - startTime;
+		}
+		
+		return (double)totalTime / (this.numRepetitions * this.numMeasuredCalls);
+	}
+	
+	public static void main(String[] args) {
+		int[] queueLengths = new int[] { 10, 100, 1000 };
+		
+		DispatchBenchmark benchmark = new DispatchBenchmark(
+			Scenarios.createLargeBuilding(4),
+			building -> new ThreePassageGroupElevator(building),
+			10,
+			50);
+		
+		//Warm up
+		for (int queueLength : queueLengths) {
+			benchmark.measure(queueLength, 4711);
+		}
+		
+		System.out.println("Queued calls;Dispatch time (us)");
+		for (int queueLength : queueLengths) {
+			double dispatchTime = benchmark.measure(queueLength, 1337);
+			System.out.println(queueLength + ";" + String.format("%.2f", dispatchTime / 1000.0));
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package elevatorsimulator;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -16,6 +17,9 @@ public class Elevator {
 	private int destinationFloor;
 	
 	private final List<Passenger> passengers;
+	private final List<Passenger> passengersView;
+	private final List<List<Passenger>> passengersByDestination;
+	private final BitSet destinationFloors;
 	
 	private final ElevatorConfiguration configuration;
 	
@@ -40,24 +44,36 @@ public class Elevator {
 	private long startStartTime;
 	private long intervalEnterStart;
 	private long turnStartTime;
-	private double boardWaitTime = 0.0;
+	private long boardWaitDuration = 0;
 	
 	private Direction prevDirection;
 	
 	private long numPassengers;
 	
+	private double energyConsumption;
+	private long stateStartTime;
+	
 	/**
 	 * Creates a new elevator
 	 * @param id The id of the elevator
 	 * @param startFloor The start floor
+	 * @param numFloors The number of floors in the building
 	 * @param configuration The configuration
 	 */
-	public Elevator(int id, int startFloor, ElevatorConfiguration configuration) {
+	public Elevator(int id, int startFloor, int numFloors, ElevatorConfiguration configuration) {
 		this.id = id;
 		this.floor = startFloor;
 		this.direction = Direction.NONE;
 		this.passengers = new ArrayList<Passenger>();
+		this.passengersView = Collections.unmodifiableList(this.passengers);
 		this.configuration = configuration;
+		
+		this.passengersByDestination = new ArrayList<List<Passenger>>(numFloors);
+		for (int i = 0; i < numFloors; i++) {
+			this.passengersByDestination.add(new ArrayList<Passenger>());
+		}
+		
+		this.destinationFloors = new BitSet(numFloors);
 	}
 
 	/**
@@ -96,6 +112,57 @@ public class Elevator {
 		return this.state;
 	}
 	
+	/**
+	 * Indicates if the elevator car stands at its floor, so that passengers can board it
+	 */
+	public boolean isOpenForBoarding() {
+		return this.state == State.STOPPED || this.state == State.IDLE;
+	}
+	
+	/**
+	 * Returns the energy consumed in the current state until the given time
+	 * @param clock The clock
+	 * @param time The time
+	 */
+	private double stateEnergyConsumption(SimulatorClock clock, long time) {
+		return EnergyConsumption.consumptionRate(this.state) * clock.asSecond(time - this.stateStartTime);
+	}
+	
+	/**
+	 * Returns the total energy consumed by the elevator car until now
+	 * @param clock The clock
+	 */
+	public double getEnergyConsumption(SimulatorClock clock) {
+		return this.energyConsumption + this.stateEnergyConsumption(clock, clock.timeNow());
+	}
+	
+	/**
+	 * Changes the state of the elevator and notifies the control system
+	 * @param simulator The simulator
+	 * @param state The new state
+	 */
+	private void setState(Simulator simulator, State state) {
+		if (this.state != state) {
+			long timeNow = simulator.getClock().timeNow();
+			this.energyConsumption += this.stateEnergyConsumption(simulator.getClock(), timeNow);
+			this.stateStartTime = timeNow;
+			this.state = state;
+			simulator.getBuilding().elevatorStateChanged(this);
+			this.changed(simulator);
+		}
+	}
+	
+	/**
+	 * Notifies the control system that the elevator car has changed
+	 * @param simulator The simulator
+	 */
+	private void changed(Simulator simulator) {
+		//The scheduler can move the elevator car while the control system is created
+		if (simulator.getControlSystem() != null) {
+			simulator.getControlSystem().elevatorChanged(this);
+		}
+	}
+	
 	/**
 	 * Returns the destination floor
 	 */
@@ -104,10 +171,48 @@ public class Elevator {
 	}
 
 	/**
-	 * Returns the passengers
+	 * Returns a read-only view of the passengers, in the order they boarded
 	 */
 	public List<Passenger> getPassengers() {
-		return passengers;
+		return passengersView;
+	}
+	
+	/**
+	 * Indicates if any passenger has the given destination floor
+	 * @param floor The floor
+	 */
+	public boolean hasDestination(int floor) {
+		return this.destinationFloors.get(floor);
+	}
+	
+	/**
+	 * Changes the destination floor of a passenger in the elevator car
+	 * @param passenger The passenger
+	 * @param destinationFloor The new destination floor
+	 */
+	public void redirectPassenger(Passenger passenger, int destinationFloor) {
+		int oldDestination = passenger.getDestinationFloor();
+		List<Passenger> oldBucket = this.passengersByDestination.get(oldDestination);
+		
+		if (!oldBucket.remove(passenger)) {
+			throw new IllegalArgumentException("The passenger is not in the elevator car.");
+		}
+		
+		if (oldBucket.isEmpty()) {
+			this.destinationFloors.clear(oldDestination);
+		}
+		
+		passenger.setDestinationFloor(destinationFloor);
+		this.addToDestination(passenger);
+	}
+	
+	/**
+	 * Adds the given passenger to the bucket of its destination floor
+	 * @param passenger The passenger
+	 */
+	private void addToDestination(Passenger passenger) {
+		this.passengersByDestination.get(passenger.getDestinationFloor()).add(passenger);
+		this.destinationFloors.set(passenger.getDestinationFloor());
 	}
 	
 	/**
@@ -157,7 +262,7 @@ public class Elevator {
 	public void stopElevator(Simulator simulator) {
 		simulator.elevatorDebugLog(id, "Starts to slow down.");
 		this.stopStartTime = simulator.getClock().timeNow();
-		this.state = State.DECELERATING;
+		this.setState(simulator, State.DECELERATING);
 	}
 	
 	/**
@@ -176,8 +281,8 @@ public class Elevator {
 	private boolean hasStopped(Simulator simulator) {
 		SimulatorClock clock = simulator.getClock();
 		
-		double stopTime = this.configuration.getStopTime() + this.configuration.getDoorTime();
-		if (clock.elapsedSinceRealTime(this.stopStartTime) >= clock.secondsToTime(stopTime)) {
+		long stopDuration = this.configuration.getStopDuration() + this.configuration.getDoorDuration();
+		if (clock.elapsedSinceRealTime(this.stopStartTime) >= stopDuration) {
 			return true;
 		} else {
 			return false;
@@ -191,7 +296,7 @@ public class Elevator {
 	public void startElevator(Simulator simulator) {
 		simulator.elevatorDebugLog(this.id, "Starts accelerating the elevator.");
 		this.startStartTime = simulator.getClock().timeNow();
-		this.state = State.ACCELERATING;
+		this.setState(simulator, State.ACCELERATING);
 	}
 	
 	/**
@@ -201,7 +306,7 @@ public class Elevator {
 	private boolean hasStarted(Simulator simulator) {
 		SimulatorClock clock = simulator.getClock();
 		
-		if (clock.elapsedSinceRealTime(this.startStartTime) >= clock.secondsToTime(this.configuration.getStartTime())) {
+		if (clock.elapsedSinceRealTime(this.startStartTime) >= this.configuration.getStartDuration()) {
 			return true;
 		} else {
 			return false;
@@ -224,9 +329,10 @@ public class Elevator {
 	 */
 	public void turnElevator(Simulator simulator) {
 		if (this.direction != Direction.NONE) {
-			this.state = State.TURNING;
+			this.setState(simulator, State.TURNING);
 			this.turnStartTime = simulator.getClock().timeNow();
 			this.direction = this.direction.oppositeDir();
+			this.changed(simulator);
 		}
 	}
 	
@@ -237,8 +343,8 @@ public class Elevator {
 	private boolean hasTurned(Simulator simulator) {
 		SimulatorClock clock = simulator.getClock();
 		
-		double turnTime = this.configuration.getStopTime() + this.configuration.getStartTime();
-		if (clock.elapsedSinceRealTime(this.turnStartTime) >= clock.secondsToTime(turnTime)) {
+		long turnDuration = this.configuration.getStopDuration() + this.configuration.getStartDuration();
+		if (clock.elapsedSinceRealTime(this.turnStartTime) >= turnDuration) {
 			return true;
 		} else {
 			return false;
@@ -258,7 +364,7 @@ public class Elevator {
 			{
 				//Check if the elevator has moved to the next floor
 				long duration = clock.durationFromRealTime(timeNow - this.lastMovement);
-				if (duration >= clock.secondsToTime(this.configuration.getFloorTime())) {		
+				if (duration >= this.configuration.getFloorDuration()) {		
 					if (this.direction == Direction.UP) {
 						this.floor++;
 					} else if (this.direction == Direction.DOWN) {
@@ -266,6 +372,7 @@ public class Elevator {
 					}
 					
 					this.lastMovement = timeNow;
+					this.changed(simulator);
 					
 					//Check if to stop
 					if (this.stopAtNext) {
@@ -274,17 +381,15 @@ public class Elevator {
 					}
 					
 					//Check if any passenger wants to go off
-					for (Passenger passenger : new LinkedList<Passenger>(this.passengers)) {
-						if (this.floor == passenger.getDestinationFloor()) {
-							this.stopElevator(simulator);
-							return;
-						}
+					if (this.destinationFloors.get(this.floor)) {
+						this.stopElevator(simulator);
+						return;
 					}
 					
 					//If the destination floor has been reached, stop.
 					if (this.floor == this.destinationFloor) {
 						this.stopElevator(simulator);
-						simulator.elevatorDebugLog(id, "Terminated movement at floor " + this.floor + ".");
+						simulator.elevatorDebugLog(id, () -> "Terminated movement at floor " + this.floor + ".");
 						this.direction = Direction.NONE;
 					}
 				}
@@ -294,14 +399,18 @@ public class Elevator {
 			{
 				//Let of passengers if the current floor is their destination
 				boolean leaved = false;
-				for (Passenger passenger : new LinkedList<Passenger>(this.passengers)) {
-					if (this.floor == passenger.getDestinationFloor()) {
-						simulator.elevatorLog(this.id, "Passenger #" + passenger.getId() + " exited at floor " + this.floor + ".");
-						simulator.log("Passenger #" + passenger.getId() + " stats: " + passenger.getStats(simulator.getClock()) + ".");
+				if (this.destinationFloors.get(this.floor)) {
+					List<Passenger> leaving = this.passengersByDestination.get(this.floor);
+					for (int i = 0; i < leaving.size(); i++) {
+						Passenger passenger = leaving.get(i);
+						simulator.logEvent(SimulatorLog.EventType.EXIT, passenger, this.floor, this.id);
 						simulator.passengerExited(this, passenger);
 						this.passengers.remove(passenger);
-						leaved = true;
 					}
+					
+					leaving.clear();
+					this.destinationFloors.clear(this.floor);
+					leaved = true;
 				}
 				
 				if (this.passengers.size() > 0) {
@@ -311,14 +420,14 @@ public class Elevator {
 				} else {
 					//If there are no more passengers, the elevator is idle and waits on the floor.
 					this.direction = Direction.NONE;
-					this.state = State.IDLE;
+					this.setState(simulator, State.IDLE);
 					simulator.getControlSystem().elevatorIdle(this);
 					return;
 				}
 				
 				//Check if the doors has closed and the elevator starts moving again
 				long duration = timeNow - this.intervalEnterStart;
-				if (clock.durationFromRealTime(duration) >= clock.secondsToTime(this.configuration.getDoorTime())) {
+				if (clock.durationFromRealTime(duration) >= this.configuration.getDoorDuration()) {
 					this.startElevator(simulator);
 				}
 			}
@@ -326,7 +435,7 @@ public class Elevator {
 		case ACCELERATING:
 			{
 				if (this.hasStarted(simulator)) {
-					this.state = State.MOVING;
+					this.setState(simulator, State.MOVING);
 					this.lastMovement = timeNow;
 					simulator.elevatorDebugLog(this.id, "Has started.");
 					
@@ -341,8 +450,8 @@ public class Elevator {
 		case DECELERATING:
 			{
 				if (this.hasStopped(simulator)) {
-					this.state = State.STOPPED;
-					simulator.elevatorDebugLog(this.id, "Has stopped at floor " + this.floor + ".");
+					this.setState(simulator, State.STOPPED);
+					simulator.elevatorDebugLog(this.id, () -> "Has stopped at floor " + this.floor + ".");
 					this.prevDirection = this.direction;
 				}
 			}
@@ -350,7 +459,7 @@ public class Elevator {
 		case TURNING:
 			{
 				if (this.hasTurned(simulator)) {
-					this.state = State.MOVING;
+					this.setState(simulator, State.MOVING);
 				}
 			}
 			break;
@@ -359,6 +468,35 @@ public class Elevator {
 		}
 	}
 	
+	/**
+	 * Returns the time of the next state change of the elevator car
+	 * @param simulator The simulator
+	 */
+	public long nextEventTime(Simulator simulator) {
+		SimulatorClock clock = simulator.getClock();
+
+		switch (this.state) {
+		case MOVING:
+			return this.lastMovement + this.configuration.getFloorDuration();
+		case STOPPED:
+			{
+				if (this.passengers.isEmpty() || this.destinationFloors.get(this.floor)) {
+					return clock.timeNow();
+				}
+
+				return this.intervalEnterStart + this.configuration.getDoorDuration();
+			}
+		case ACCELERATING:
+			return this.startStartTime + this.configuration.getStartDuration();
+		case DECELERATING:
+			return this.stopStartTime + this.configuration.getStopDuration() + this.configuration.getDoorDuration();
+		case TURNING:
+			return this.turnStartTime + this.configuration.getStopDuration() + this.configuration.getStartDuration();
+		default:
+			return Long.MAX_VALUE;
+		}
+	}
+
 	/**
 	 * Indicates if the elevator can pickup one passenger
 	 */
@@ -387,7 +525,14 @@ public class Elevator {
 	 * @param simulator The simulator
 	 */
 	public boolean canBoard(Simulator simulator) {
-		return simulator.getClock().elapsedSinceRealTime(this.intervalEnterStart) >= simulator.getClock().secondsToTime(this.boardWaitTime);
+		return simulator.getClock().elapsedSinceRealTime(this.intervalEnterStart) >= this.boardWaitDuration;
+	}
+	
+	/**
+	 * Returns the time from which a passenger can board the elevator
+	 */
+	public long getBoardingTime() {
+		return this.intervalEnterStart + this.boardWaitDuration;
 	}
 	
 	/**
@@ -397,13 +542,14 @@ public class Elevator {
 	 */
 	public void pickUp(Simulator simulator, Passenger passenger) {
 		if (this.state == State.IDLE) {
-			this.state = State.STOPPED;
+			this.setState(simulator, State.STOPPED);
 		}
 		
 		passenger.rideStarted(simulator.getClock());
 		this.passengers.add(passenger);
+		this.addToDestination(passenger);
 		this.beginDoorTime(simulator);
-		this.boardWaitTime = 1.0;
+		this.boardWaitDuration = SimulatorClock.NANOSECONDS_PER_SECOND;
 		this.numPassengers++;
 		
 		if (this.direction == Direction.UP) {
@@ -445,7 +591,13 @@ public class Elevator {
 		this.stopAtNext = false;
 		this.direction = Direction.NONE;
 		this.passengers.clear();
+		for (List<Passenger> bucket : this.passengersByDestination) {
+			bucket.clear();
+		}
+		this.destinationFloors.clear();
 		this.numPassengers = 0;
+		this.energyConsumption = 0;
+		this.stateStartTime = 0;
 		this.lastMovement = 0;
 		this.floor = 0;
 		this.intervalEnterStart = 0;
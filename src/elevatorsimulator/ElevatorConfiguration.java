@@ -11,6 +11,11 @@ public class ElevatorConfiguration {
 	private final double startTime;
 	private final double doorTime;
 	
+	private final long floorDuration;
+	private final long stopDuration;
+	private final long startDuration;
+	private final long doorDuration;
+	
 	private static final ElevatorConfiguration DEFAULT_CONFIGURATION = new ElevatorConfiguration(8, 1.5, 2.6, 2.6, 1);
 	
 	/**
@@ -26,6 +31,19 @@ public class ElevatorConfiguration {
 		this.stopTime = stopTime;
 		this.startTime = startTime;
 		this.doorTime = doorTime;
+		
+		this.floorDuration = toClockTime(floorTime);
+		this.stopDuration = toClockTime(stopTime);
+		this.startDuration = toClockTime(startTime);
+		this.doorDuration = toClockTime(doorTime);
+	}
+	
+	/**
+	 * Converts the given number of seconds to the time of the simulator clock
+	 * @param seconds The number of seconds
+	 */
+	private static long toClockTime(double seconds) {
+		return Math.round(seconds * SimulatorClock.NANOSECONDS_PER_SECOND);
 	}
 	
 	/**
@@ -63,6 +81,34 @@ public class ElevatorConfiguration {
 		return doorTime;
 	}
 	
+	/**
+	 * Returns the floor time in the time of the simulator clock
+	 */
+	public long getFloorDuration() {
+		return floorDuration;
+	}
+	
+	/**
+	 * Returns the stop time in the time of the simulator clock
+	 */
+	public long getStopDuration() {
+		return stopDuration;
+	}
+	
+	/**
+	 * Returns the start time in the time of the simulator clock
+	 */
+	public long getStartDuration() {
+		return startDuration;
+	}
+	
+	/**
+	 * Returns the door time in the time of the simulator clock
+	 */
+	public long getDoorDuration() {
+		return doorDuration;
+	}
+	
 	/**
 	 * Returns the default configuration
 	 * @return
@@ -0,0 +1,147 @@
+package elevatorsimulator;
+
+import elevatorsimulator.Elevator.State;
+
+/**
+ * A read-only snapshot of the state of the elevator cars, stored as one primitive array per field.
+ * The building takes the snapshot when it is first requested after the elevator cars have been updated
+ * in a time step, so that schedulers can scan the cars without dereferencing them.
+ * The cars are indexed by their id.
+ */
+public class ElevatorSnapshot {
+	private static final State[] STATES = State.values();
+	private static final Direction[] DIRECTIONS = Direction.values();
+	
+	private final int[] floors;
+	private final int[] nextFloors;
+	private final int[] states;
+	private final int[] directions;
+	private final int[] loads;
+	private final int[] capacities;
+	
+	/**
+	 * Creates a new snapshot for the given number of elevator cars
+	 * @param numElevators The number of elevator cars
+	 */
+	public ElevatorSnapshot(int numElevators) {
+		this.floors = new int[numElevators];
+		this.nextFloors = new int[numElevators];
+		this.states = new int[numElevators];
+		this.directions = new int[numElevators];
+		this.loads = new int[numElevators];
+		this.capacities = new int[numElevators];
+	}
+	
+	/**
+	 * Takes the snapshot of the given elevator cars
+	 * @param elevators The elevator cars
+	 */
+	void update(Elevator[] elevators) {
+		for (int i = 0; i < elevators.length; i++) {
+			Elevator elevator = elevators[i];
+			this.floors[i] = elevator.getFloor();
+			this.nextFloors[i] = elevator.nextFloor();
+			this.states[i] = elevator.getState().ordinal();
+			this.directions[i] = elevator.getDirection().ordinal();
+			this.loads[i] = elevator.getPassengers().size();
+			this.capacities[i] = elevator.getConfiguration().getCapacity();
+		}
+	}
+	
+	/**
+	 * Returns the number of elevator cars
+	 */
+	public int numElevators() {
+		return this.floors.length;
+	}
+	
+	/**
+	 * Returns the floor of the given car
+	 * @param car The id of the car
+	 */
+	public int getFloor(int car) {
+		return this.floors[car];
+	}
+	
+	/**
+	 * Returns the next floor of the given car
+	 * @param car The id of the car
+	 */
+	public int getNextFloor(int car) {
+		return this.nextFloors[car];
+	}
+	
+	/**
+	 * Returns the ordinal of the state of the given car
+	 * @param car The id of the car
+	 */
+	public int getStateOrdinal(int car) {
+		return this.states[car];
+	}
+	
+	/**
+	 * Returns the state of the given car
+	 * @param car The id of the car
+	 */
+	public State getState(int car) {
+		return STATES[this.states[car]];
+	}
+	
+	/**
+	 * Returns the ordinal of the direction of the given car
+	 * @param car The id of the car
+	 */
+	public int getDirectionOrdinal(int car) {
+		return this.directions[car];
+	}
+	
+	/**
+	 * Returns the direction of the given car
+	 * @param car The id of the car
+	 */
+	public Direction getDirection(int car) {
+		return DIRECTIONS[this.directions[car]];
+	}
+	
+	/**
+	 * Returns the number of passengers in the given car
+	 * @param car The id of the car
+	 */
+	public int getLoad(int car) {
+		return this.loads[car];
+	}
+	
+	/**
+	 * Returns the passenger capacity of the given car
+	 * @param car The id of the car
+	 */
+	public int getCapacity(int car) {
+		return this.capacities[car];
+	}
+	
+	/**
+	 * Indicates if the given car can pickup passengers with the given capacity
+	 * @param car The id of the car
+	 * @param capacity The passenger capacity
+	 */
+	public boolean canPickupPassenger(int car, int capacity) {
+		return this.loads[car] + capacity <= this.capacities[car];
+	}
+	
+	/**
+	 * Counts the cars in the given state
+	 * @param state The state
+	 */
+	public int count(State state) {
+		int stateOrdinal = state.ordinal();
+		int count = 0;
+		
+		for (int i = 0; i < this.states.length; i++) {
+			if (this.states[i] == stateOrdinal) {
+				count++;
+			}
+		}
+		
+		return count;
+	}
+}
@@ -1,37 +1,85 @@
 package elevatorsimulator;
 
+import elevatorsimulator.Elevator.State;
+
+/**
+ * The energy consumption of an elevator car during a stats interval.
+ * The elevator car accounts its energy when it changes state, so the consumption is
+ * the difference between the energy consumed by the car at the end and at the start of the interval.
+ */
 public class EnergyConsumption {
-    private double consumption;
-    private final Elevator elevator;
+    /**
+     * The consumption per second when moving
+     */
+    public static final double MOVE_CONSUMPTION = 1.0;
 
-    private final double moveConsumption = 1.0;
-    private final double idleConsumption = 0.01;
-    private boolean diffFlag = true;
+    /**
+     * The consumption per second when standing still
+     */
+    public static final double IDLE_CONSUMPTION = 0.01;
 
-    EnergyConsumption(Elevator elevator) {
+    private final Elevator elevator;
+    private final SimulatorClock clock;
+    private final double start;
+    private double consumption;
+    private boolean isClosed;
+
+    /**
+     * Creates a new consumption that starts now
+     * @param elevator The elevator car
+     * @param clock The clock
+     */
+    EnergyConsumption(Elevator elevator, SimulatorClock clock) {
         this.elevator = elevator;
+        this.clock = clock;
+        this.start = elevator.getEnergyConsumption(clock);
     }
 
-    public double getConsumption() { return consumption; }
+    /**
+     * Creates a consumption with the given fixed value
+     * @param consumption The consumption
+     */
+    EnergyConsumption(double consumption) {
+        this.elevator = null;
+        this.clock = null;
+        this.start = 0;
+        this.consumption = consumption;
+        this.isClosed = true;
+    }
 
-    public void update() {
-        switch (elevator.getState()) {
+    /**
+     * Returns the consumption per second in the given state
+     * @param state The state
+     */
+    public static double consumptionRate(State state) {
+        switch (state) {
             case MOVING:
-                consumption += moveConsumption;
-                diffFlag = true;
-                break;
-            case STOPPED, TURNING, IDLE:
-                consumption += idleConsumption;
-                diffFlag = true;
-                break;
+                return MOVE_CONSUMPTION;
             case ACCELERATING, DECELERATING:
-                if(diffFlag) {
-                    consumption += (moveConsumption + idleConsumption) / 2 * elevator.getConfiguration().getStartTime();
-                    diffFlag = false;
-                }
-                break;
+                return (MOVE_CONSUMPTION + IDLE_CONSUMPTION) / 2;
             default:
-                break;
+                return IDLE_CONSUMPTION;
+        }
+    }
+
+    /**
+     * Returns the consumption since the start of the interval, or until its end if it has ended
+     */
+    public double getConsumption() {
+        if (this.isClosed) {
+            return this.consumption;
+        }
+
+        return this.elevator.getEnergyConsumption(this.clock) - this.start;
+    }
+
+    /**
+     * Marks that the interval has ended
+     */
+    void close() {
+        if (!this.isClosed) {
+            this.consumption = this.getConsumption();
+            this.isClosed = true;
         }
     }
 }
@@ -0,0 +1,159 @@
+package elevatorsimulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A log that records the passenger events as primitives in a fixed size ring buffer.
+ * When the buffer is full, the oldest events are overwritten. Messages are not recorded.
+ */
+public class EventRingBuffer implements SimulatorLog {
+	private static final EventType[] EVENT_TYPES = EventType.values();
+	
+	private final byte[] types;
+	private final long[] times;
+	private final long[] passengerIds;
+	private final int[] floors;
+	private final int[] elevatorIds;
+	
+	private int next = 0;
+	private int size = 0;
+	
+	/**
+	 * Creates a new ring buffer
+	 * @param capacity The maximum number of events
+	 */
+	public EventRingBuffer(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("The capacity must be positive.");
+		}
+		
+		this.types = new byte[capacity];
+		this.times = new long[capacity];
+		this.passengerIds = new long[capacity];
+		this.floors = new int[capacity];
+		this.elevatorIds = new int[capacity];
+	}
+	
+	@Override
+	public boolean isEnabled(Level level) {
+		return false;
+	}
+	
+	@Override
+	public void message(Simulator simulator, Level level, int elevatorId, String line) {
+		
+	}
+	
+	@Override
+	public void event(Simulator simulator, EventType type, Passenger passenger, int floor, int elevatorId) {
+		int index = this.next;
+		this.types[index] = (byte)type.ordinal();
+		this.times[index] = simulator.getClock().timeNow();
+		this.passengerIds[index] = passenger.getId();
+		this.floors[index] = floor;
+		this.elevatorIds[index] = elevatorId;
+		
+		this.next = (index + 1) % this.types.length;
+		if (this.size < this.types.length) {
+			this.size++;
+		}
+	}
+	
+	/**
+	 * Returns the maximum number of events
+	 */
+	public int getCapacity() {
+		return this.types.length;
+	}
+	
+	/**
+	 * Returns the number of recorded events
+	 */
+	public int size() {
+		return this.size;
+	}
+	
+	/**
+	 * Returns the buffer index of the given event
+	 * @param event The event, where 0 is the oldest recorded event
+	 */
+	private int bufferIndex(int event) {
+		if (event < 0 || event >= this.size) {
+			throw new IndexOutOfBoundsException("Event " + event + " of " + this.size + ".");
+		}
+		
+		return (this.next - this.size + event + this.types.length) % this.types.length;
+	}
+	
+	/**
+	 * Returns the type of the given event
+	 * @param event The event, where 0 is the oldest recorded event
+	 */
+	public EventType getType(int event) {
+		return EVENT_TYPES[this.types[this.bufferIndex(event)]];
+	}
+	
+	/**
+	 * Returns the time of the given event
+	 * @param event The event, where 0 is the oldest recorded event
+	 */
+	public long getTime(int event) {
+		return this.times[this.bufferIndex(event)];
+	}
+	
+	/**
+	 * Returns the passenger id of the given event
+	 * @param event The event, where 0 is the oldest recorded event
+	 */
+	public long getPassengerId(int event) {
+		return this.passengerIds[this.bufferIndex(event)];
+	}
+	
+	/**
+	 * Returns the floor of the given event
+	 * @param event The event, where 0 is the oldest recorded event
+	 */
+	public int getFloor(int event) {
+		return this.floors[this.bufferIndex(event)];
+	}
+	
+	/**
+	 * Returns the elevator id of the given event
+	 * @param event The event, where 0 is the oldest recorded event
+	 */
+	public int getElevatorId(int event) {
+		return this.elevatorIds[this.bufferIndex(event)];
+	}
+	
+	/**
+	 * Decodes the recorded events into readable lines, oldest first
+	 * @param clock The clock used when recording
+	 */
+	public List<String> decode(SimulatorClock clock) {
+		List<String> lines = new ArrayList<String>(this.size);
+		
+		for (int i = 0; i < this.size; i++) {
+			String line = clock.formattedTime(clock.asSecond(this.getTime(i)))
+				+ ": " + this.getType(i)
+				+ " passenger #" + this.getPassengerId(i)
+				+ " at floor " + this.getFloor(i);
+			
+			if (this.getElevatorId(i) != NO_ELEVATOR) {
+				line += " (Elevator " + this.getElevatorId(i) + ")";
+			}
+			
+			lines.add(line + ".");
+		}
+		
+		return lines;
+	}
+	
+	/**
+	 * Removes all the recorded events
+	 */
+	public void clear() {
+		this.next = 0;
+		this.size = 0;
+	}
+}
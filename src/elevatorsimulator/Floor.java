@@ -1,9 +1,12 @@
 package elevatorsimulator;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Queue;
-
-import elevatorsimulator.Elevator.State;
+import java.util.SplittableRandom;
 
 /**
  * Represents a floor in the building
@@ -16,13 +19,19 @@ public class Floor {
 	private final TrafficProfile trafficProfile;
 	
 	private final Queue<Passenger> waitingQueue;
+	private final Queue<Passenger> waitingQueueView;
+	private final ArrayDeque<Passenger> upQueue = new ArrayDeque<Passenger>();
+	private final ArrayDeque<Passenger> downQueue = new ArrayDeque<Passenger>();
 	
-	private long timeLeft = 0;
-	private boolean isFirst = true;
+	private final ArrivalCountdown arrivalCountdown;
+	private final GeneratedArrivals generatedArrivals = new GeneratedArrivals();
 	
-	private long lastIntervalStart = 0;
 	private TrafficProfile.Interval interval;
-	private RandomValueGenerator<Floor> destinationFloorGenerator;
+	private AliasTable[] destinationFloorTables;
+	private AliasTable destinationFloorTable;
+	
+	private SplittableRandom arrivalRandom;
+	private SplittableRandom destinationRandom;
 	
 	/**
 	 * Creates a new floor
@@ -35,6 +44,8 @@ public class Floor {
 		this.numResidents = numResidents;
 		this.trafficProfile = trafficProfile;
 		this.waitingQueue = new LinkedList<Passenger>();
+		this.waitingQueueView = new WaitingQueueView();
+		this.arrivalCountdown = new ArrivalCountdown(trafficProfile.length());
 	}
 	
 	/**
@@ -52,10 +63,86 @@ public class Floor {
 	}
 	
 	/**
-	 * Returns the waiting queue for the floor
+	 * Returns a read-only view of the waiting queue for the floor, in arrival order
 	 */
 	public Queue<Passenger> getWaitingQueue() {
-		return waitingQueue;
+		return this.waitingQueueView;
+	}
+	
+	/**
+	 * Returns the queue of the passengers waiting to travel in the given direction
+	 * @param direction The direction
+	 * @return The queue or null if the direction is none
+	 */
+	private ArrayDeque<Passenger> getDirectionQueue(Direction direction) {
+		switch (direction) {
+		case UP:
+			return this.upQueue;
+		case DOWN:
+			return this.downQueue;
+		default:
+			return null;
+		}
+	}
+	
+	/**
+	 * Returns the number of passengers waiting on the floor
+	 */
+	public int getNumWaiting() {
+		return this.waitingQueue.size();
+	}
+	
+	/**
+	 * Returns the number of passengers waiting to travel in the given direction
+	 * @param direction The direction
+	 */
+	public int getNumWaiting(Direction direction) {
+		ArrayDeque<Passenger> queue = this.getDirectionQueue(direction);
+		
+		if (queue == null) {
+			return this.waitingQueue.size() - this.upQueue.size() - this.downQueue.size();
+		}
+		
+		return queue.size();
+	}
+	
+	/**
+	 * Sets the precomputed destination floor tables for each interval of the traffic profile
+	 * @param destinationFloorTables The tables
+	 */
+	void setDestinationFloorTables(AliasTable[] destinationFloorTables) {
+		this.destinationFloorTables = destinationFloorTables;
+	}
+	
+	/**
+	 * Creates the table for the destination floors of the given arrival floor
+	 * @param building The building
+	 * @param arrivalFloor The arrival floor
+	 * @param interval The interval
+	 */
+	public static AliasTable createDestinationFloorTable(Building building, Floor arrivalFloor, TrafficProfile.Interval interval) {
+		double[] probabilities = new double[building.numFloors()];
+		
+		for (Floor floor : building.getFloors()) {
+			if (floor != arrivalFloor) {
+				probabilities[floor.getFloorNumber()] = interval.destinationFloorProbability(
+					building,
+					arrivalFloor,
+					floor);
+			}
+		}
+		
+		return new AliasTable(probabilities);
+	}
+	
+	/**
+	 * Sets the random streams of the floor. Without them, the floor uses the random generator of the simulator.
+	 * @param arrivalRandom The stream of the arrival times
+	 * @param destinationRandom The stream of the destinations
+	 */
+	void setRandomStreams(SplittableRandom arrivalRandom, SplittableRandom destinationRandom) {
+		this.arrivalRandom = arrivalRandom;
+		this.destinationRandom = destinationRandom;
 	}
 	
 	/**
@@ -63,32 +150,39 @@ public class Floor {
 	 * @param simulator The simulator
 	 */
 	private void setInterval(Simulator simulator) {
-		this.interval = this.trafficProfile.getIntervalData(simulator.getClock().elapsedSinceRealTime(0));
-		this.destinationFloorGenerator = new RandomValueGenerator<Floor>(simulator.getRandom());
+		int intervalIndex = this.trafficProfile.getIntervalIndex(simulator.getClock().elapsedSinceRealTime(0));
+		this.interval = this.trafficProfile.getInterval(intervalIndex);
 		
-		for (Floor floor : simulator.getBuilding().getFloors()) {
-			if (floor != this) {
-				double probability = this.interval.destinationFloorProbability(
-					simulator.getBuilding(),
-					this,
-					floor);
-				
-				this.destinationFloorGenerator.addValue(probability, floor);
-			}
+		if (this.destinationFloorTables != null) {
+			this.destinationFloorTable = this.destinationFloorTables[intervalIndex];
+		} else {
+			this.destinationFloorTable = createDestinationFloorTable(simulator.getBuilding(), this, this.interval);
 		}
 	}
 	
 	/**
-	 * Generates the next arrival time
+	 * Generates the time until the next arrival
 	 * @param simulator The simulator
 	 */
-	private void generateNextTimeArrival(Simulator simulator) {
-		double averageArrivalRate = this.interval.averageNumberOfArrivals(
-			simulator.getBuilding(),
+	private long generateNextTimeArrival(Simulator simulator) {
+		double random = this.arrivalRandom != null ? this.arrivalRandom.nextDouble() : simulator.getRandom().nextDouble();
+		return this.timeToNextArrival(simulator.getBuilding(), this.interval, simulator.getClock(), random);
+	}
+	
+	/**
+	 * Returns the time until the next arrival, drawn from the exponential distribution of the given interval
+	 * @param building The building
+	 * @param interval The interval
+	 * @param clock The clock
+	 * @param random A uniformly distributed random value in [0, 1)
+	 */
+	long timeToNextArrival(Building building, TrafficProfile.Interval interval, SimulatorClock clock, double random) {
+		double averageArrivalRate = interval.averageNumberOfArrivals(
+			building,
 			this) / (double)this.trafficProfile.lengthInMinutes();
 		
-		double nextTime = (-Math.log(1.0 - simulator.getRandom().nextDouble()) / averageArrivalRate);
-		this.timeLeft = simulator.getClock().minutesToTime(nextTime);
+		double nextTime = (-Math.log(1.0 - random) / averageArrivalRate);
+		return clock.minutesToTime(nextTime);
 	}
 	
 	/**
@@ -96,7 +190,8 @@ public class Floor {
 	 * @param simulator The simulator
 	 */
 	private int generateRandomDestination(Simulator simulator) {
-		return this.destinationFloorGenerator.randomValue().floorNumber;
+		double random = this.destinationRandom != null ? this.destinationRandom.nextDouble() : simulator.getRandom().nextDouble();
+		return this.destinationFloorTable.sample(random);
 	}
 	
 	/**
@@ -106,10 +201,77 @@ public class Floor {
 	 * @param passenger The passenger
 	 */
 	private void hallCallHandled(Simulator simulator, Elevator elevator, Passenger passenger) {
-		simulator.getControlSystem().hallCallHandled(elevator, passenger);
+		simulator.hallCallHandled(elevator, passenger);
 		passenger.board();
 	}
 	
+	/**
+	 * Returns the next passenger that the given elevator car would pick up, ignoring its capacity
+	 * @param elevator The elevator car
+	 * @return The passenger or null
+	 */
+	private Passenger nextPassengerFor(Elevator elevator) {
+		ArrayDeque<Passenger> queue = this.getDirectionQueue(elevator.getDirection());
+		
+		if (queue == null) {
+			//A car without direction takes the passenger that has waited the longest
+			return this.waitingQueue.peek();
+		}
+		
+		return queue.peek();
+	}
+	
+	/**
+	 * Lets the elevator cars stopped at the floor pick up the waiting passengers.
+	 * Each car picks up the passenger that has waited the longest among those going in its direction.
+	 * @param simulator The simulator
+	 */
+	private void pickUpPassengers(Simulator simulator) {
+		Building building = simulator.getBuilding();
+		BitSet boardingCars = building.getBoardingCars(this.floorNumber);
+		
+		for (int id = boardingCars.nextSetBit(0); id >= 0; id = boardingCars.nextSetBit(id + 1)) {
+			if (this.waitingQueue.isEmpty()) {
+				break;
+			}
+			
+			Elevator elevator = building.getElevatorCars()[id];
+			if (!elevator.canBoard(simulator)) {
+				continue;
+			}
+			
+			Passenger passenger = this.nextPassengerFor(elevator);
+			if (passenger == null || !elevator.canPickupPassenger(passenger)) {
+				continue;
+			}
+			
+			simulator.logEvent(SimulatorLog.EventType.PICKUP, passenger, this.floorNumber, elevator.getId());
+			
+			elevator.setDirection(passenger.getDirection());
+			elevator.pickUp(simulator, passenger);
+			this.removeWaiting(passenger);
+			this.hallCallHandled(simulator, elevator, passenger);
+		}
+	}
+	
+	/**
+	 * Removes the given passenger from the waiting queues
+	 * @param passenger The passenger
+	 */
+	private void removeWaiting(Passenger passenger) {
+		//The passenger is first in its direction queue, so only passengers going the other way are ahead
+		if (this.waitingQueue.peek() == passenger) {
+			this.waitingQueue.poll();
+		} else {
+			this.waitingQueue.remove(passenger);
+		}
+		
+		ArrayDeque<Passenger> queue = this.getDirectionQueue(passenger.getDirection());
+		if (queue != null) {
+			queue.poll();
+		}
+	}
+	
 	/**
 	 * Updates the floor
 	 * @param simulator The simulator
@@ -117,66 +279,40 @@ public class Floor {
 	 */
 	public void update(Simulator simulator, long duration) {
 		if (!this.waitingQueue.isEmpty()) {
-			Iterator<Passenger> iterator = this.waitingQueue.iterator();
-			while (iterator.hasNext()) {
-				Passenger passenger = iterator.next();
-				for (Elevator elevator : simulator.getBuilding().getElevatorCars()) {
-					if (elevator.getState() == State.STOPPED || elevator.getState() == State.IDLE) {			
-						//Check if the elevator can pickup the passenger
-						if (!elevator.canPickupPassenger(passenger) || !elevator.canBoard(simulator)) {
-							continue;
-						}
-						
-						boolean canPickup = false;
-						
-						Direction dir = Direction.getDirection(this.floorNumber, passenger.getDestinationFloor());
-						
-						if (this.floorNumber == elevator.getFloor()) {
-							canPickup = 
-								elevator.getDirection() == Direction.NONE
-								|| elevator.getDirection() == dir;
-						}
-						
-						
-						if (canPickup) {
-							simulator.elevatorLog(elevator.getId(), "Picked up passenger #" + passenger.getId() + " at floor "
-								+ this.floorNumber + " with the destination of "
-								+ passenger.getDestinationFloor() + ".");
-								
-							elevator.setDirection(dir);
-							elevator.pickUp(simulator, passenger);
-							iterator.remove();
-							this.hallCallHandled(simulator, elevator, passenger);
-							break;
-						}
-					}
-				}
-			}
+			this.pickUpPassengers(simulator);
 		}
 		
 		//Check if the next interval has started
-		SimulatorClock clock = simulator.getClock();
-		long timeNow = clock.timeNow();
-		long intervalDuration = timeNow - this.lastIntervalStart;
-		
-		if (clock.durationFromRealTime(intervalDuration) >= this.trafficProfile.length() || interval == null) {
-			this.setInterval(simulator);
-			this.lastIntervalStart = timeNow;
-			this.generateNextTimeArrival(simulator);
-		}
+		this.generatedArrivals.simulator = simulator;
+		this.arrivalCountdown.updateInterval(this.generatedArrivals, simulator.getClock().timeNow());
 
-		// revise part
-		if(simulator.isUsingPassengerList()) {
-			if(simulator.canGenerateArrivals()) {
-				this.tryGenerateNewArrivalByList(simulator, duration);
-			}
-		} else {
-			if (simulator.canGenerateArrivals()) {
+		if (simulator.canGenerateArrivals()) {
+			this.releaseScheduledArrivals(simulator);
+			
+			if (!simulator.isUsingPassengerList()) {
 				this.tryGenerateNewArrival(simulator, duration);
 			}
 		}
 	}
 	
+	/**
+	 * Adds the given passenger to the waiting queue
+	 * @param simulator The simulator
+	 * @param passenger The passenger
+	 */
+	private void passengerArrived(Simulator simulator, Passenger passenger) {
+		this.waitingQueue.add(passenger);
+		
+		ArrayDeque<Passenger> queue = this.getDirectionQueue(passenger.getDirection());
+		if (queue != null) {
+			queue.add(passenger);
+		}
+		
+		simulator.getControlSystem().handleHallCall(passenger);
+		simulator.logEvent(SimulatorLog.EventType.ARRIVAL, passenger, this.floorNumber, SimulatorLog.NO_ELEVATOR);
+		simulator.arrivalGenerated(passenger);
+	}
+	
 	/**
 	 * Tries to generate a new arrival on the floor. The success of the method depends on the probability.
 	 * @param simulator The simulator
@@ -184,64 +320,94 @@ public class Floor {
 	 * @return True if generated
 	 */
 	public boolean tryGenerateNewArrival(Simulator simulator, long duration) {
-		if (this.isFirst) {
-			this.generateNextTimeArrival(simulator);
-			this.isFirst = false;
-			return false;
+		this.generatedArrivals.simulator = simulator;
+		return this.arrivalCountdown.countDown(this.generatedArrivals, simulator.getClock().timeNow(), duration);
+	}
+	
+	/**
+	 * Generates a new passenger arriving on the floor
+	 * @param simulator The simulator
+	 */
+	private void generateNewArrival(Simulator simulator) {
+		int randFloor = generateRandomDestination(simulator);
+		
+		Passenger newPassenger = new Passenger(
+			simulator.nextPassengerId(),
+			this.floorNumber,
+			randFloor,
+			1,
+			simulator.getClock());
+		
+		this.passengerArrived(simulator, newPassenger);
+	}
+
+	/**
+	 * Releases all the arrivals in the arrival schedule of the simulator that are due on the floor
+	 * @param simulator The simulator
+	 * @return The number of released passengers
+	 */
+	public int releaseScheduledArrivals(Simulator simulator) {
+		ArrivalSchedule schedule = simulator.getArrivalSchedule();
+		int numReleased = 0;
+		
+		Passenger passenger;
+		while ((passenger = schedule.poll(this.floorNumber, simulator.getClock())) != null) {
+			this.passengerArrived(simulator, passenger);
+			numReleased++;
 		}
 		
-		this.timeLeft -= duration;
+		return numReleased;
+	}
+
+	/**
+	 * Returns the time when the next waiting passenger can board an elevator car stopped at the floor,
+	 * or Long.MAX_VALUE if no car at the floor can take one. Cars arriving at the floor are events of the cars.
+	 * @param simulator The simulator
+	 */
+	private long nextBoardingTime(Simulator simulator) {
+		Building building = simulator.getBuilding();
+		BitSet boardingCars = building.getBoardingCars(this.floorNumber);
+		long boardingTime = Long.MAX_VALUE;
 		
-		if (this.timeLeft <= 0) {
-			int randFloor = generateRandomDestination(simulator);
-			
-			Passenger newPassenger = new Passenger(
-				simulator.nextPassengerId(),
-				this.floorNumber,
-				randFloor,
-				1,
-				simulator.getClock());
-			
-			this.waitingQueue.add(newPassenger);		
-			simulator.getControlSystem().handleHallCall(newPassenger);
+		for (int id = boardingCars.nextSetBit(0); id >= 0; id = boardingCars.nextSetBit(id + 1)) {
+			Elevator elevator = building.getElevatorCars()[id];
+			Passenger passenger = this.nextPassengerFor(elevator);
 			
-			simulator.log(
-				"Generated passenger #" + newPassenger.getId() + " at floor "
-				+ this.floorNumber + " with the destination: "
-				+ newPassenger.getDestinationFloor() + ".");
-			
-			simulator.arrivalGenerated(newPassenger);
-			
-			this.generateNextTimeArrival(simulator);
-			return true;
+			if (passenger != null && elevator.canPickupPassenger(passenger)) {
+				boardingTime = Math.min(boardingTime, elevator.getBoardingTime());
+			}
 		}
-			
-		return false;
+		
+		return Math.max(boardingTime, simulator.getClock().timeNow());
 	}
+	
+	/**
+	 * Returns the time of the next event on the floor: an arrival, the start of a new interval
+	 * or a waiting passenger boarding a car
+	 * @param simulator The simulator
+	 */
+	public long nextEventTime(Simulator simulator) {
+		long timeNow = simulator.getClock().timeNow();
 
-	public boolean tryGenerateNewArrivalByList(Simulator simulator, long duration) {
-		if(simulator.getPre_madeList().peek() == null)
-			return false;
-
-		if (simulator.getClock().timeNow() >= simulator.getPre_madeList().peek().getTimeOfArrival()
-		&& this.floorNumber == simulator.getPre_madeList().peek().getArrivalFloor()) {
-			Passenger newPassenger = simulator.getPre_madeList().poll();
-
-			this.waitingQueue.add(newPassenger);
-			simulator.getControlSystem().handleHallCall(newPassenger);
-
-			simulator.log(
-					"Generated passenger #" + newPassenger.getId() + " at floor "
-							+ this.floorNumber + " with the destination: "
-							+ newPassenger.getDestinationFloor() + ".");
+		if (!this.arrivalCountdown.hasInterval()) {
+			return timeNow;
+		}
 
-			simulator.arrivalGenerated(newPassenger);
+		long eventTime = this.arrivalCountdown.nextIntervalTime();
+		
+		if (!this.waitingQueue.isEmpty()) {
+			eventTime = Math.min(eventTime, this.nextBoardingTime(simulator));
+		}
 
-			this.generateNextTimeArrival(simulator);
-			return true;
+		if (simulator.canGenerateArrivals()) {
+			eventTime = Math.min(eventTime, simulator.getArrivalSchedule().nextArrivalTime(this.floorNumber));
+			
+			if (!simulator.isUsingPassengerList()) {
+				eventTime = Math.min(eventTime, this.arrivalCountdown.nextArrivalTime(timeNow));
+			}
 		}
 
-		return false;
+		return eventTime;
 	}
 
 	/**
@@ -249,9 +415,62 @@ public class Floor {
 	 */
 	public void reset() {
 		this.waitingQueue.clear();
+		this.upQueue.clear();
+		this.downQueue.clear();
 		this.interval = null;
-		this.isFirst = true;
-		this.timeLeft = 0;
-		this.lastIntervalStart = 0;
+		this.arrivalCountdown.reset();
+		this.generatedArrivals.simulator = null;
+	}
+	
+	/**
+	 * The arrivals generated on the floor by the simulator that updates it
+	 */
+	private class GeneratedArrivals implements ArrivalCountdown.Arrivals {
+		public Simulator simulator;
+		
+		@Override
+		public void startInterval(long time) {
+			Floor.this.setInterval(this.simulator);
+		}
+		
+		@Override
+		public long timeToNextArrival() {
+			return Floor.this.generateNextTimeArrival(this.simulator);
+		}
+		
+		@Override
+		public void arrive(long time) {
+			Floor.this.generateNewArrival(this.simulator);
+		}
+	}
+	
+	/**
+	 * A read-only view of the waiting queue
+	 */
+	private class WaitingQueueView extends AbstractQueue<Passenger> {
+		@Override
+		public Iterator<Passenger> iterator() {
+			return Collections.unmodifiableCollection(Floor.this.waitingQueue).iterator();
+		}
+		
+		@Override
+		public int size() {
+			return Floor.this.waitingQueue.size();
+		}
+		
+		@Override
+		public boolean offer(Passenger passenger) {
+			throw new UnsupportedOperationException("The waiting queue is read-only.");
+		}
+		
+		@Override
+		public Passenger poll() {
+			throw new UnsupportedOperationException("The waiting queue is read-only.");
+		}
+		
+		@Override
+		public Passenger peek() {
+			return Floor.this.waitingQueue.peek();
+		}
 	}
 }
@@ -0,0 +1,327 @@
+package elevatorsimulator;
+
+import java.util.AbstractQueue;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+/**
+ * Keeps track of the hall calls waiting to be handled. The calls are kept in arrival order,
+ * and are indexed by passenger and by (floor, direction), so that calls can be added and removed in constant time.
+ */
+public class HallCallRegistry implements Iterable<Passenger> {
+	//A passenger whose destination is its arrival floor has no direction, but still waits on the floor
+	private static final int NUM_DIRECTIONS = 3;
+	
+	private final Map<Passenger, Call> calls = new IdentityHashMap<Passenger, Call>();
+	private final Queue<Passenger> queueView = new QueueView();
+	
+	private Call first;
+	private Call last;
+	
+	private final Call[][] floorFirst;
+	private final Call[][] floorLast;
+	private final int[][] floorCounts;
+	
+	/**
+	 * Represents a hall call. The call is linked both in the arrival order of all calls,
+	 * and in the arrival order of the calls with the same floor and direction.
+	 */
+	private static class Call {
+		public final Passenger passenger;
+		public final int directionIndex;
+		
+		public Call prev;
+		public Call next;
+		public Call floorPrev;
+		public Call floorNext;
+		
+		public Call(Passenger passenger, int directionIndex) {
+			this.passenger = passenger;
+			this.directionIndex = directionIndex;
+		}
+	}
+	
+	/**
+	 * Creates a new registry
+	 * @param numFloors The number of floors in the building
+	 */
+	public HallCallRegistry(int numFloors) {
+		this.floorFirst = new Call[numFloors][NUM_DIRECTIONS];
+		this.floorLast = new Call[numFloors][NUM_DIRECTIONS];
+		this.floorCounts = new int[numFloors][NUM_DIRECTIONS];
+	}
+	
+	/**
+	 * Returns the index for the given direction. The calls without a direction are kept apart, like in {@link Floor#getNumWaiting(Direction)}.
+	 * @param direction The direction
+	 */
+	private static int directionIndex(Direction direction) {
+		switch (direction) {
+		case UP:
+			return 0;
+		case DOWN:
+			return 1;
+		default:
+			return 2;
+		}
+	}
+	
+	/**
+	 * Adds the hall call of the given passenger
+	 * @param passenger The passenger
+	 */
+	public void add(Passenger passenger) {
+		if (this.calls.containsKey(passenger)) {
+			throw new IllegalArgumentException("The passenger already has a hall call.");
+		}
+		
+		int floor = passenger.getArrivalFloor();
+		Call call = new Call(passenger, directionIndex(passenger.getDirection()));
+		this.calls.put(passenger, call);
+		
+		call.prev = this.last;
+		if (this.last != null) {
+			this.last.next = call;
+		} else {
+			this.first = call;
+		}
+		this.last = call;
+		
+		call.floorPrev = this.floorLast[floor][call.directionIndex];
+		if (call.floorPrev != null) {
+			call.floorPrev.floorNext = call;
+		} else {
+			this.floorFirst[floor][call.directionIndex] = call;
+		}
+		this.floorLast[floor][call.directionIndex] = call;
+		this.floorCounts[floor][call.directionIndex]++;
+	}
+	
+	/**
+	 * Removes the hall call of the given passenger
+	 * @param passenger The passenger
+	 * @return True if the passenger had a hall call
+	 */
+	public boolean remove(Passenger passenger) {
+		Call call = this.calls.remove(passenger);
+		if (call == null) {
+			return false;
+		}
+		
+		int floor = passenger.getArrivalFloor();
+		
+		if (call.prev != null) {
+			call.prev.next = call.next;
+		} else {
+			this.first = call.next;
+		}
+		
+		if (call.next != null) {
+			call.next.prev = call.prev;
+		} else {
+			this.last = call.prev;
+		}
+		
+		if (call.floorPrev != null) {
+			call.floorPrev.floorNext = call.floorNext;
+		} else {
+			this.floorFirst[floor][call.directionIndex] = call.floorNext;
+		}
+		
+		if (call.floorNext != null) {
+			call.floorNext.floorPrev = call.floorPrev;
+		} else {
+			this.floorLast[floor][call.directionIndex] = call.floorPrev;
+		}
+		
+		this.floorCounts[floor][call.directionIndex]--;
+		return true;
+	}
+	
+	/**
+	 * Indicates if the given passenger has a hall call
+	 * @param passenger The passenger
+	 */
+	public boolean contains(Passenger passenger) {
+		return this.calls.containsKey(passenger);
+	}
+	
+	/**
+	 * Returns the number of hall calls
+	 */
+	public int size() {
+		return this.calls.size();
+	}
+	
+	/**
+	 * Indicates if there are no hall calls
+	 */
+	public boolean isEmpty() {
+		return this.calls.isEmpty();
+	}
+	
+	/**
+	 * Returns the number of hall calls on the given floor in the given direction
+	 * @param floor The floor
+	 * @param direction The direction
+	 */
+	public int count(int floor, Direction direction) {
+		return this.floorCounts[floor][directionIndex(direction)];
+	}
+	
+	/**
+	 * Returns the number of hall calls on the given floor
+	 * @param floor The floor
+	 */
+	public int count(int floor) {
+		int count = 0;
+		for (int dir = 0; dir < NUM_DIRECTIONS; dir++) {
+			count += this.floorCounts[floor][dir];
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Returns the oldest hall call on the given floor in the given direction, or null if there are none
+	 * @param floor The floor
+	 * @param direction The direction
+	 */
+	public Passenger oldestCall(int floor, Direction direction) {
+		Call call = this.floorFirst[floor][directionIndex(direction)];
+		return call != null ? call.passenger : null;
+	}
+	
+	/**
+	 * Returns the time of arrival of the oldest hall call on the given floor in the given direction,
+	 * or Long.MAX_VALUE if there are none
+	 * @param floor The floor
+	 * @param direction The direction
+	 */
+	public long oldestCallTime(int floor, Direction direction) {
+		Passenger passenger = this.oldestCall(floor, direction);
+		return passenger != null ? passenger.getTimeOfArrival() : Long.MAX_VALUE;
+	}
+	
+	/**
+	 * Returns the oldest hall call, or null if there are none
+	 */
+	public Passenger oldestCall() {
+		return this.first != null ? this.first.passenger : null;
+	}
+	
+	/**
+	 * Iterates over the hall calls in arrival order
+	 */
+	@Override
+	public Iterator<Passenger> iterator() {
+		return new CallIterator(this.first, false);
+	}
+	
+	/**
+	 * Iterates over the hall calls on the given floor in the given direction, in arrival order
+	 * @param floor The floor
+	 * @param direction The direction
+	 */
+	public Iterable<Passenger> calls(int floor, Direction direction) {
+		Call first = this.floorFirst[floor][directionIndex(direction)];
+		return () -> new CallIterator(first, true);
+	}
+	
+	/**
+	 * Returns a read-only queue view of the hall calls in arrival order
+	 */
+	public Queue<Passenger> asQueue() {
+		return this.queueView;
+	}
+	
+	/**
+	 * Removes all the hall calls
+	 */
+	public void clear() {
+		this.calls.clear();
+		this.first = null;
+		this.last = null;
+		
+		for (int floor = 0; floor < this.floorCounts.length; floor++) {
+			for (int dir = 0; dir < NUM_DIRECTIONS; dir++) {
+				this.floorFirst[floor][dir] = null;
+				this.floorLast[floor][dir] = null;
+				this.floorCounts[floor][dir] = 0;
+			}
+		}
+	}
+	
+	/**
+	 * Iterates over linked calls. The call last returned may be removed from the registry while iterating,
+	 * but a call removed further ahead may still be returned.
+	 */
+	private static class CallIterator implements Iterator<Passenger> {
+		private Call next;
+		private final boolean sameFloor;
+		
+		public CallIterator(Call first, boolean sameFloor) {
+			this.next = first;
+			this.sameFloor = sameFloor;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return this.next != null;
+		}
+		
+		@Override
+		public Passenger next() {
+			if (this.next == null) {
+				throw new NoSuchElementException();
+			}
+			
+			Call call = this.next;
+			this.next = this.sameFloor ? call.floorNext : call.next;
+			return call.passenger;
+		}
+	}
+	
+	/**
+	 * A read-only queue view of the registry
+	 */
+	private class QueueView extends AbstractQueue<Passenger> {
+		@Override
+		public Iterator<Passenger> iterator() {
+			return HallCallRegistry.this.iterator();
+		}
+		
+		@Override
+		public int size() {
+			return HallCallRegistry.this.size();
+		}
+		
+		@Override
+		public boolean isEmpty() {
+			return HallCallRegistry.this.isEmpty();
+		}
+		
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof Passenger && HallCallRegistry.this.contains((Passenger)o);
+		}
+		
+		@Override
+		public boolean offer(Passenger passenger) {
+			throw new UnsupportedOperationException("The hall queue is read-only.");
+		}
+		
+		@Override
+		public Passenger poll() {
+			throw new UnsupportedOperationException("The hall queue is read-only.");
+		}
+		
+		@Override
+		public Passenger peek() {
+			return HallCallRegistry.this.oldestCall();
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package elevatorsimulator;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A histogram of durations with a fixed number of logarithmic buckets.
+ * Each power of two range is split into the same number of linear sub-buckets,
+ * so values are recorded with a relative error of less than one percent.
+ * The durations are recorded in milliseconds, up to about 50 days.
+ */
+public class Histogram {
+	private static final int SUB_BUCKET_BITS = 8;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+	private static final int MAX_VALUE_BITS = 32;
+	private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+	private static final int NUM_BUCKETS = bucketIndex(MAX_VALUE) + 1;
+	
+	private final long[] counts = new long[NUM_BUCKETS];
+	private long totalCount;
+	
+	/**
+	 * Returns the bucket index for the given value
+	 * @param value The value in milliseconds
+	 */
+	private static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int)value;
+		}
+		
+		int exponent = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS + 1;
+		return exponent * SUB_BUCKET_HALF_COUNT + (int)(value >> exponent);
+	}
+	
+	/**
+	 * Returns the lowest value in the given bucket
+	 * @param index The bucket index
+	 */
+	private static long lowestValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		
+		int exponent = index / SUB_BUCKET_HALF_COUNT - 1;
+		long subBucket = index - exponent * SUB_BUCKET_HALF_COUNT;
+		return subBucket << exponent;
+	}
+	
+	/**
+	 * Returns the number of values in the given bucket
+	 * @param index The bucket index
+	 */
+	private static long bucketWidth(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return 1;
+		}
+		
+		return 1L << (index / SUB_BUCKET_HALF_COUNT - 1);
+	}
+	
+	/**
+	 * Records the given duration
+	 * @param seconds The duration in seconds
+	 */
+	public void record(double seconds) {
+		long value = Math.min(Math.max(Math.round(seconds * 1000), 0), MAX_VALUE);
+		this.counts[bucketIndex(value)]++;
+		this.totalCount++;
+	}
+	
+	/**
+	 * Adds the counts of the given histogram to the current
+	 * @param other The other histogram
+	 */
+	public void add(Histogram other) {
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			this.counts[i] += other.counts[i];
+		}
+		
+		this.totalCount += other.totalCount;
+	}
+	
+	/**
+	 * Returns the number of recorded durations
+	 */
+	public long getTotalCount() {
+		return this.totalCount;
+	}
+	
+	/**
+	 * Returns the duration in seconds that the given percentage of the recorded durations are less than or equal to.
+	 * The middle of the bucket that contains the duration is returned, or NaN if the histogram is empty.
+	 * @param percentile The percentile, between 0 and 100
+	 */
+	public double getValueAtPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("The percentile must be between 0 and 100.");
+		}
+		
+		if (this.totalCount == 0) {
+			return Double.NaN;
+		}
+		
+		long targetCount = Math.max(1, (long)Math.ceil(percentile / 100 * this.totalCount));
+		long count = 0;
+		
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			count += this.counts[i];
+			
+			if (count >= targetCount) {
+				return (lowestValue(i) + (bucketWidth(i) - 1) / 2.0) / 1000.0;
+			}
+		}
+		
+		return MAX_VALUE / 1000.0;
+	}
+	
+	/**
+	 * Writes the histogram to the given stream. Only the non-empty buckets are written.
+	 * @param stream The stream
+	 */
+	void write(DataOutputStream stream) throws IOException {
+		int numNonEmpty = 0;
+		for (long count : this.counts) {
+			if (count != 0) {
+				numNonEmpty++;
+			}
+		}
+		
+		stream.writeInt(numNonEmpty);
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			if (this.counts[i] != 0) {
+				stream.writeInt(i);
+				stream.writeLong(this.counts[i]);
+			}
+		}
+	}
+	
+	/**
+	 * Reads a histogram written by {@link #write} from the given stream
+	 * @param stream The stream
+	 */
+	static Histogram read(DataInputStream stream) throws IOException {
+		Histogram histogram = new Histogram();
+		int numNonEmpty = stream.readInt();
+		
+		for (int i = 0; i < numNonEmpty; i++) {
+			int index = stream.readInt();
+			long count = stream.readLong();
+			
+			if (index < 0 || index >= NUM_BUCKETS || count < 0) {
+				throw new IOException("Invalid histogram bucket.");
+			}
+			
+			histogram.counts[index] += count;
+			histogram.totalCount += count;
+		}
+		
+		return histogram;
+	}
+	
+	/**
+	 * Removes all the recorded durations
+	 */
+	public void clear() {
+		Arrays.fill(this.counts, 0);
+		this.totalCount = 0;
+	}
+}
@@ -0,0 +1,384 @@
+package elevatorsimulator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+import elevatorsimulator.schedulers.*;
+
+/**
+ * Runs the simulator for every combination of a grid of parameters, and streams the global statistics
+ * of each run into one result table as the runs finish. Runs already in the table are skipped,
+ * so an interrupted sweep can be resumed by running it again with the same table.
+ */
+public class ParameterSweep {
+	private static final String SEPARATOR = ";";
+	private static final String[] PARAMETER_COLUMNS = {
+		"Building",
+		"Elevator cars",
+		"Elevator configuration",
+		"Traffic profile",
+		"Scheduler",
+		"Seed"
+	};
+	
+	private final SimulatorSettings settings;
+	private final Map<String, int[]> buildings = new LinkedHashMap<String, int[]>();
+	private final List<Integer> numElevatorCars = new ArrayList<Integer>();
+	private final Map<String, ElevatorConfiguration> elevatorConfigurations = new LinkedHashMap<String, ElevatorConfiguration>();
+	private final Map<String, TrafficProfile> trafficProfiles = new LinkedHashMap<String, TrafficProfile>();
+	private final Map<String, SchedulerCreator> schedulers = new LinkedHashMap<String, SchedulerCreator>();
+	private final List<Long> seeds = new ArrayList<Long>();
+	
+	/**
+	 * A run in the sweep
+	 */
+	private static class Job {
+		public final Scenario scenario;
+		public final SchedulerCreator schedulerCreator;
+		public final long seed;
+		public final String key;
+		
+		public Job(Scenario scenario, SchedulerCreator schedulerCreator, long seed, String key) {
+			this.scenario = scenario;
+			this.schedulerCreator = schedulerCreator;
+			this.seed = seed;
+			this.key = key;
+		}
+	}
+	
+	/**
+	 * The result of a run in the sweep
+	 */
+	private static class JobResult {
+		public final Job job;
+		public final StatsInterval stats;
+		
+		public JobResult(Job job, StatsInterval stats) {
+			this.job = job;
+			this.stats = stats;
+		}
+	}
+	
+	/**
+	 * Creates a new sweep
+	 * @param settings The settings for all the runs
+	 */
+	public ParameterSweep(SimulatorSettings settings) {
+		this.settings = settings;
+	}
+	
+	/**
+	 * Checks that the given name can be written to the result table
+	 * @param name The name
+	 */
+	private static String checkName(String name) {
+		if (name.isEmpty() || name.contains(SEPARATOR) || name.contains("\n")) {
+			throw new IllegalArgumentException("Invalid name '" + name + "'.");
+		}
+		
+		return name;
+	}
+	
+	/**
+	 * Adds a building
+	 * @param name The name of the building
+	 * @param floorResidents The number of residents on each floor
+	 */
+	public void addBuilding(String name, int[] floorResidents) {
+		this.buildings.put(checkName(name), floorResidents.clone());
+	}
+	
+	/**
+	 * Adds a number of elevator cars
+	 * @param numElevatorCars The number of elevator cars
+	 */
+	public void addNumElevatorCars(int numElevatorCars) {
+		if (numElevatorCars <= 0) {
+			throw new IllegalArgumentException("The number of elevator cars must be positive.");
+		}
+		
+		this.numElevatorCars.add(numElevatorCars);
+	}
+	
+	/**
+	 * Adds an elevator configuration
+	 * @param name The name of the configuration
+	 * @param configuration The configuration
+	 */
+	public void addElevatorConfiguration(String name, ElevatorConfiguration configuration) {
+		this.elevatorConfigurations.put(checkName(name), configuration);
+	}
+	
+	/**
+	 * Adds a traffic profile
+	 * @param name The name of the profile
+	 * @param trafficProfile The traffic profile
+	 */
+	public void addTrafficProfile(String name, TrafficProfile trafficProfile) {
+		this.trafficProfiles.put(checkName(name), trafficProfile);
+	}
+	
+	/**
+	 * Adds a scheduler
+	 * @param name The name of the scheduler
+	 * @param schedulerCreator The creator of the scheduler
+	 */
+	public void addScheduler(String name, SchedulerCreator schedulerCreator) {
+		this.schedulers.put(checkName(name), schedulerCreator);
+	}
+	
+	/**
+	 * Adds a seed
+	 * @param seed The seed
+	 */
+	public void addSeed(long seed) {
+		this.seeds.add(seed);
+	}
+	
+	/**
+	 * Expands the grid into the runs, in the order the parameters were added.
+	 * The runs with the same building, number of cars, configuration and profile share their scenario.
+	 */
+	private List<Job> createJobs() {
+		List<Job> jobs = new ArrayList<Job>();
+		
+		for (Map.Entry<String, int[]> building : this.buildings.entrySet()) {
+			for (int numCars : this.numElevatorCars) {
+				for (Map.Entry<String, ElevatorConfiguration> configuration : this.elevatorConfigurations.entrySet()) {
+					for (Map.Entry<String, TrafficProfile> trafficProfile : this.trafficProfiles.entrySet()) {
+						String scenarioKey =
+							building.getKey() + SEPARATOR
+							+ numCars + SEPARATOR
+							+ configuration.getKey() + SEPARATOR
+							+ trafficProfile.getKey();
+						
+						Scenario scenario = new Scenario(
+							building.getKey() + "-" + numCars,
+							numCars,
+							configuration.getValue(),
+							building.getValue(),
+							trafficProfile.getValue());
+						
+						for (Map.Entry<String, SchedulerCreator> scheduler : this.schedulers.entrySet()) {
+							for (long seed : this.seeds) {
+								String key = scenarioKey + SEPARATOR + scheduler.getKey() + SEPARATOR + seed;
+								jobs.add(new Job(scenario, scheduler.getValue(), seed, key));
+							}
+						}
+					}
+				}
+			}
+		}
+		
+		return jobs;
+	}
+	
+	/**
+	 * Runs the given job
+	 * @param job The job
+	 */
+	private JobResult runJob(Job job) {
+		Simulator simulator = new Simulator(job.scenario, this.settings, job.schedulerCreator, false, job.seed);
+		simulator.setExportStats(false);
+		simulator.setLog(SimulatorLog.NONE);
+		simulator.run();
+		return new JobResult(job, simulator.getStats().getGlobalInterval());
+	}
+	
+	/**
+	 * Returns the header of the result table
+	 */
+	private static String createHeader() {
+		StringBuilder header = new StringBuilder();
+		
+		for (String column : PARAMETER_COLUMNS) {
+			header.append(column).append(SEPARATOR);
+		}
+		
+		for (StatsSummary.Metric metric : StatsSummary.Metric.values()) {
+			header.append(metric).append(SEPARATOR);
+		}
+		
+		return header.toString();
+	}
+	
+	/**
+	 * Returns the row of the result table for the given result
+	 * @param result The result
+	 */
+	private static String createRow(JobResult result) {
+		StringBuilder row = new StringBuilder();
+		row.append(result.job.key).append(SEPARATOR);
+		
+		for (StatsSummary.Metric metric : StatsSummary.Metric.values()) {
+			row.append(metric.valueOf(result.stats)).append(SEPARATOR);
+		}
+		
+		return row.toString();
+	}
+	
+	/**
+	 * Returns the key of the run of the given row, or null if the row is incomplete
+	 * @param row The row
+	 * @param numColumns The number of columns
+	 */
+	private static String rowKey(String row, int numColumns) {
+		String[] columns = row.split(SEPARATOR, -1);
+		
+		//A complete row ends with the separator
+		if (columns.length != numColumns + 1 || !columns[numColumns].isEmpty()) {
+			return null;
+		}
+		
+		return String.join(SEPARATOR, Arrays.copyOf(columns, PARAMETER_COLUMNS.length));
+	}
+	
+	/**
+	 * Reads the runs that are already in the result table, and removes any incomplete rows from it
+	 * @param resultFile The result table
+	 * @param header The header of the table
+	 * @return The keys of the finished runs
+	 */
+	private static Set<String> readFinishedRuns(File resultFile, String header) throws IOException {
+		Set<String> finished = new HashSet<String>();
+		
+		if (!resultFile.exists()) {
+			return finished;
+		}
+		
+		List<String> lines = Files.readAllLines(resultFile.toPath(), StandardCharsets.UTF_8);
+		if (lines.isEmpty()) {
+			return finished;
+		}
+		
+		if (!lines.get(0).equals(header)) {
+			throw new IllegalStateException("The result table " + resultFile + " has different columns.");
+		}
+		
+		int numColumns = header.split(SEPARATOR).length;
+		List<String> completeRows = new ArrayList<String>();
+		completeRows.add(header);
+		
+		for (int i = 1; i < lines.size(); i++) {
+			String key = rowKey(lines.get(i), numColumns);
+			if (key != null && finished.add(key)) {
+				completeRows.add(lines.get(i));
+			}
+		}
+		
+		if (completeRows.size() != lines.size()) {
+			File tempFile = new File(resultFile.getPath() + ".tmp");
+			Files.write(tempFile.toPath(), completeRows, StandardCharsets.UTF_8);
+			Files.move(tempFile.toPath(), resultFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		
+		return finished;
+	}
+	
+	/**
+	 * Runs the sweep on the given executor, and appends a row to the given result table as each run finishes.
+	 * The runs that are already in the table are skipped.
+	 * @param executor The executor
+	 * @param resultFile The result table
+	 * @return The number of runs executed
+	 */
+	public int run(ExecutorService executor, File resultFile) throws IOException {
+		String header = createHeader();
+		Set<String> finished = readFinishedRuns(resultFile, header);
+		
+		ExecutorCompletionService<JobResult> completionService = new ExecutorCompletionService<JobResult>(executor);
+		Map<String, Job> pending = new HashMap<String, Job>();
+		
+		for (Job job : this.createJobs()) {
+			if (!finished.contains(job.key) && !pending.containsKey(job.key)) {
+				pending.put(job.key, job);
+				completionService.submit(() -> this.runJob(job));
+			}
+		}
+		
+		System.out.println(
+			"Sweep: " + pending.size() + " runs to execute, "
+			+ finished.size() + " already in " + resultFile + ".");
+		
+		boolean writeHeader = !resultFile.exists() || resultFile.length() == 0;
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(resultFile, true))) {
+			if (writeHeader) {
+				writer.write(header + "\n");
+				writer.flush();
+			}
+			
+			for (int i = 0; i < pending.size(); i++) {
+				JobResult result;
+				try {
+					result = completionService.take().get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while waiting for a run.", e);
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("A run failed.", e.getCause());
+				}
+				
+				//Each row is flushed, so that it survives a crash of the sweep
+				writer.write(createRow(result) + "\n");
+				writer.flush();
+				System.out.println("Sweep: " + (i + 1) + "/" + pending.size() + " " + result.job.key);
+			}
+		}
+		
+		return pending.size();
+	}
+	
+	public static void main(String[] args) throws IOException {
+		ParameterSweep sweep = new ParameterSweep(new SimulatorSettings(0.01, 24 * 60 * 60));
+		sweep.addBuilding("MediumBuilding", new int[] { 0, 65, 80, 75, 85, 90, 90, 75, 80, 70 });
+		sweep.addBuilding("LargeBuilding", new int[] { 0, 70, 70, 75, 85, 75, 80, 90, 90, 85, 75, 80, 75, 90, 70, 70 });
+		
+		for (int numCars = 2; numCars <= 4; numCars++) {
+			sweep.addNumElevatorCars(numCars);
+		}
+		
+		sweep.addElevatorConfiguration("Default", ElevatorConfiguration.defaultConfiguration());
+		sweep.addTrafficProfile("WeekDay", TrafficProfiles.WEEK_DAY_PROFILE);
+		
+		sweep.addScheduler("Collective Control", building -> new CollectiveControl());
+		sweep.addScheduler("Longest Queue First", building -> new LongestQueueFirst());
+		sweep.addScheduler("Zoning", building -> new Zoning(building.getElevatorCars().length, building));
+		sweep.addScheduler("Round Robin", building -> new RoundRobin(building, false));
+		sweep.addScheduler("Three Passage Group Elevator", building -> new ThreePassageGroupElevator(building));
+		
+		Random seedGenerator = new Random(SimulatorRunner.DATA_RUN_SEED);
+		for (int i = 0; i < SimulatorRunner.NUM_DATA_RUNS; i++) {
+			sweep.addSeed(seedGenerator.nextLong());
+		}
+		
+		File dataDir = new File("data");
+		if (!dataDir.exists()) {
+			dataDir.mkdir();
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try {
+			sweep.run(pool, new File(dataDir, "Sweep.csv"));
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -16,7 +16,8 @@ public class Passenger {
 	private final long timeOfArrival;
 	private long timeOfRideStarted;
 	
-	private static final DecimalFormat statsFormat = new DecimalFormat("#.###");
+	//DecimalFormat is not thread-safe, so each thread has its own
+	private static final ThreadLocal<DecimalFormat> statsFormat = ThreadLocal.withInitial(() -> new DecimalFormat("#.###"));
 	
 	/**
 	 * Creates a new passenger
@@ -66,6 +67,10 @@ public class Passenger {
 		return destinationFloor;
 	}
 
+	/**
+	 * Sets the destination floor. Use Elevator.redirectPassenger for passengers riding an elevator car.
+	 * @param newDestination The new destination floor
+	 */
 	public void setDestinationFloor(int newDestination) {
 		destinationFloor = newDestination;
 	}
@@ -146,8 +151,8 @@ public class Passenger {
 	 */
 	public String getStats(SimulatorClock clock) {
 		return 
-			"Wait time: " + statsFormat.format(clock.asSecond(this.waitTime(clock))) + " s"
-			+ " Ride time: " + statsFormat.format(clock.asSecond(this.rideTime(clock))) + " s";
+			"Wait time: " + statsFormat.get().format(clock.asSecond(this.waitTime(clock))) + " s"
+			+ " Ride time: " + statsFormat.get().format(clock.asSecond(this.rideTime(clock))) + " s";
 	}
 	
 	@Override
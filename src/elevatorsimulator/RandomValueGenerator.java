@@ -12,6 +12,7 @@ import java.util.Random;
 public class RandomValueGenerator<T> {
 	private Random random;
 	private List<ValueProbability<T>> values = new ArrayList<ValueProbability<T>>();
+	private AliasTable table;
 	
 	private static class ValueProbability<T> {
 		public final double probability;
@@ -38,22 +39,22 @@ public class RandomValueGenerator<T> {
 	 */
 	public void addValue(double probability, T value) {
 		this.values.add(new ValueProbability<T>(probability, value));
+		this.table = null;
 	}
 	
 	/**
-	 * Generates a new random value
+	 * Generates a new random value. The alias table is built at the first call after a value has been added.
 	 */
 	public T randomValue() {
-		double randomValue = this.random.nextDouble();
-
-        for (ValueProbability<T> value : this.values) {
-            if (randomValue < value.probability) {
-                return value.value;
-            }
-
-            randomValue -= value.probability;
-        }
-
-        throw new IllegalStateException("The probabilities of the values do not add up to 1.");
+		if (this.table == null) {
+			double[] probabilities = new double[this.values.size()];
+			for (int i = 0; i < probabilities.length; i++) {
+				probabilities[i] = this.values.get(i).probability;
+			}
+			
+			this.table = new AliasTable(probabilities);
+		}
+		
+		return this.values.get(this.table.sample(this.random.nextDouble())).value;
 	}
 }
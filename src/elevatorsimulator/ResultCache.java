@@ -0,0 +1,281 @@
+package elevatorsimulator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * An on-disk cache of the results of simulation runs.
+ * The results are stored under a hash of everything that determines them: the scenario, the settings,
+ * the scheduler and the compiled code of its classes, and the seed. A change of the scheduler code therefore
+ * misses the cache, but changes of the rest of the simulator need a new {@link #SIMULATOR_VERSION}. When the total size of the cache exceeds its limit,
+ * the least recently used results are removed.
+ */
+public class ResultCache {
+	/**
+	 * The version of the simulator. Must be increased when a change of the simulator changes the results of runs,
+	 * so that results of the old version are not used.
+	 */
+	public static final int SIMULATOR_VERSION = 1;
+	
+	private static final int MAGIC = 0x45534352;
+	private static final int FORMAT_VERSION = 1;
+	private static final String FILE_SUFFIX = ".bin";
+	
+	private final File directory;
+	private final long maxSizeInBytes;
+	
+	/**
+	 * The cached result of a run
+	 */
+	public static class Result {
+		private final StatsInterval globalStats;
+		private final List<StatsInterval> hourStats;
+		
+		/**
+		 * Creates a new result
+		 * @param globalStats The global stats of the run
+		 * @param hourStats The hour stats of the run
+		 */
+		public Result(StatsInterval globalStats, List<StatsInterval> hourStats) {
+			this.globalStats = globalStats;
+			this.hourStats = hourStats;
+		}
+		
+		/**
+		 * Returns the global stats of the run
+		 */
+		public StatsInterval getGlobalStats() {
+			return this.globalStats;
+		}
+		
+		/**
+		 * Returns the hour stats of the run
+		 */
+		public List<StatsInterval> getHourStats() {
+			return this.hourStats;
+		}
+	}
+	
+	/**
+	 * Creates a new cache
+	 * @param directory The directory to store the results in
+	 * @param maxSizeInBytes The maximum total size of the stored results
+	 */
+	public ResultCache(File directory, long maxSizeInBytes) {
+		if (maxSizeInBytes <= 0) {
+			throw new IllegalArgumentException("The maximum size must be > 0.");
+		}
+		
+		this.directory = directory;
+		this.maxSizeInBytes = maxSizeInBytes;
+	}
+	
+	/**
+	 * Returns the key of the run with the given parameters
+	 * @param scenario The scenario
+	 * @param settings The settings
+	 * @param scheduler The scheduler
+	 * @param seed The seed
+	 */
+	public static String key(Scenario scenario, SimulatorSettings settings, SchedulingAlgorithm scheduler, long seed) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available.", e);
+		}
+		
+		try (DataOutputStream stream = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+			stream.writeInt(SIMULATOR_VERSION);
+			
+			int[] floorResidents = scenario.getFloorResidents();
+			stream.writeInt(floorResidents.length);
+			for (int residents : floorResidents) {
+				stream.writeInt(residents);
+			}
+			
+			stream.writeInt(scenario.getNumElevatorCars());
+			ElevatorConfiguration configuration = scenario.getElevatorConfiguration();
+			stream.writeInt(configuration.getCapacity());
+			stream.writeDouble(configuration.getFloorTime());
+			stream.writeDouble(configuration.getStopTime());
+			stream.writeDouble(configuration.getStartTime());
+			stream.writeDouble(configuration.getDoorTime());
+			
+			TrafficProfile trafficProfile = scenario.getTrafficProfile();
+			stream.writeLong(trafficProfile.lengthInMinutes());
+			stream.writeInt(trafficProfile.numIntervals());
+			for (int i = 0; i < trafficProfile.numIntervals(); i++) {
+				TrafficProfile.Interval interval = trafficProfile.getInterval(i);
+				stream.writeDouble(interval.getAverageArrivalRatio());
+				stream.writeDouble(interval.getUpRate());
+				stream.writeDouble(interval.getDownRate());
+			}
+			
+			stream.writeDouble(settings.getTimeStep());
+			stream.writeDouble(settings.getSimulationTimeInSec());
+			stream.writeUTF(settings.getMode().name());
+			stream.writeBoolean(settings.usesCommonRandomNumbers());
+			
+			stream.writeUTF(scheduler.getClass().getName());
+			stream.writeUTF(scheduler.toString());
+			stream.writeInt(scheduler.getVersion());
+			writeClassCode(stream, scheduler.getClass());
+			
+			stream.writeLong(seed);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not hash the run.", e);
+		}
+		
+		return HexFormat.of().formatHex(digest.digest());
+	}
+	
+	/**
+	 * Writes the compiled code of the given class and the classes declared in it to the given stream
+	 * @param stream The stream
+	 * @param type The class
+	 */
+	private static void writeClassCode(DataOutputStream stream, Class<?> type) throws IOException {
+		String resourceName = "/" + type.getName().replace('.', '/') + ".class";
+		
+		try (InputStream classStream = type.getResourceAsStream(resourceName)) {
+			if (classStream == null) {
+				throw new IOException("The code of " + type.getName() + " was not found.");
+			}
+			
+			classStream.transferTo(stream);
+		}
+		
+		for (Class<?> declaredClass : type.getDeclaredClasses()) {
+			writeClassCode(stream, declaredClass);
+		}
+	}
+	
+	/**
+	 * Returns the file of the given key
+	 * @param key The key
+	 */
+	private File getFile(String key) {
+		return new File(this.directory, key + FILE_SUFFIX);
+	}
+	
+	/**
+	 * Returns the cached result of the given key, or null if it is not cached
+	 * @param key The key
+	 */
+	public Result get(String key) {
+		File file = this.getFile(key);
+		if (!file.exists()) {
+			return null;
+		}
+		
+		try (DataInputStream stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (stream.readInt() != MAGIC || stream.readInt() != FORMAT_VERSION) {
+				throw new IOException("Unknown format of " + file + ".");
+			}
+			
+			StatsInterval globalStats = StatsInterval.read(stream);
+			int numHours = stream.readInt();
+			List<StatsInterval> hourStats = new ArrayList<StatsInterval>();
+			for (int i = 0; i < numHours; i++) {
+				hourStats.add(StatsInterval.read(stream));
+			}
+			
+			file.setLastModified(System.currentTimeMillis());
+			return new Result(globalStats, hourStats);
+		} catch (IOException e) {
+			//A broken entry is the same as a missing one, and is replaced when the run is stored again
+			file.delete();
+			return null;
+		}
+	}
+	
+	/**
+	 * Stores the result of a run, and removes the least recently used results if the cache is full
+	 * @param key The key
+	 * @param result The result
+	 */
+	public void put(String key, Result result) {
+		try {
+			Files.createDirectories(this.directory.toPath());
+			
+			//Write to a temporary file first, so that other threads and processes never see a partial result
+			File tempFile = File.createTempFile(key, ".tmp", this.directory);
+			try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				stream.writeInt(MAGIC);
+				stream.writeInt(FORMAT_VERSION);
+				result.globalStats.write(stream);
+				stream.writeInt(result.hourStats.size());
+				
+				for (StatsInterval interval : result.hourStats) {
+					interval.write(stream);
+				}
+			} catch (IOException e) {
+				tempFile.delete();
+				throw e;
+			}
+			
+			Files.move(tempFile.toPath(), this.getFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		
+		this.evict();
+	}
+	
+	/**
+	 * Removes the least recently used results until the total size is within the limit
+	 */
+	private synchronized void evict() {
+		File[] files = this.directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+		if (files == null) {
+			return;
+		}
+		
+		long totalSize = 0;
+		long[] lastModified = new long[files.length];
+		for (int i = 0; i < files.length; i++) {
+			totalSize += files[i].length();
+			lastModified[i] = files[i].lastModified();
+		}
+		
+		if (totalSize <= this.maxSizeInBytes) {
+			return;
+		}
+		
+		Integer[] order = new Integer[files.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		
+		Arrays.sort(order, Comparator.comparingLong(i -> lastModified[i]));
+		
+		for (int i = 0; i < order.length && totalSize > this.maxSizeInBytes; i++) {
+			File file = files[order[i]];
+			long size = file.length();
+			
+			if (file.delete()) {
+				totalSize -= size;
+			}
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package elevatorsimulator;
+
+/**
+ * Computes the mean and variance of a stream of values in a single pass, using Welford's method.
+ * Statistics computed separately, for example in different threads, can be merged.
+ */
+public class RunningStatistics {
+	/**
+	 * The two-sided 95% critical values of the t-distribution for 1 to 30 degrees of freedom
+	 */
+	private static final double[] T_95 = {
+		12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+		2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+		2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+	};
+	
+	private long count;
+	private double mean;
+	private double sumSquaredDeviations;
+	
+	/**
+	 * Adds the given value
+	 * @param value The value
+	 */
+	public void add(double value) {
+		this.count++;
+		double delta = value - this.mean;
+		this.mean += delta / this.count;
+		this.sumSquaredDeviations += delta * (value - this.mean);
+	}
+	
+	/**
+	 * Adds the values of the given statistics to the current
+	 * @param other The other statistics
+	 */
+	public void merge(RunningStatistics other) {
+		if (other.count == 0) {
+			return;
+		}
+		
+		long totalCount = this.count + other.count;
+		double delta = other.mean - this.mean;
+		this.sumSquaredDeviations += other.sumSquaredDeviations + delta * delta * ((double)this.count * other.count / totalCount);
+		this.mean += delta * other.count / totalCount;
+		this.count = totalCount;
+	}
+	
+	/**
+	 * Returns the number of values
+	 */
+	public long getCount() {
+		return this.count;
+	}
+	
+	/**
+	 * Returns the mean, or NaN if there are no values
+	 */
+	public double getMean() {
+		return this.count > 0 ? this.mean : Double.NaN;
+	}
+	
+	/**
+	 * Returns the sample variance, or NaN if there are less than two values
+	 */
+	public double getVariance() {
+		return this.count > 1 ? this.sumSquaredDeviations / (this.count - 1) : Double.NaN;
+	}
+	
+	/**
+	 * Returns the sample standard deviation, or NaN if there are less than two values
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(this.getVariance());
+	}
+	
+	/**
+	 * Returns the two-sided 95% critical value of the t-distribution
+	 * @param degreesOfFreedom The degrees of freedom
+	 */
+	public static double criticalValue95(long degreesOfFreedom) {
+		if (degreesOfFreedom < 1) {
+			throw new IllegalArgumentException("The degrees of freedom must be >= 1.");
+		}
+		
+		if (degreesOfFreedom <= T_95.length) {
+			return T_95[(int)degreesOfFreedom - 1];
+		}
+		
+		//The first term of the Cornish-Fisher expansion around the normal distribution
+		double z = 1.959964;
+		return z + (z * z * z + z) / (4.0 * degreesOfFreedom);
+	}
+	
+	/**
+	 * Returns the half width of the 95% confidence interval of the mean, or NaN if there are less than two values
+	 */
+	public double getConfidenceHalfWidth95() {
+		if (this.count < 2) {
+			return Double.NaN;
+		}
+		
+		return criticalValue95(this.count - 1) * this.getStandardDeviation() / Math.sqrt(this.count);
+	}
+}
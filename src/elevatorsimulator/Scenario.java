@@ -12,6 +12,7 @@ public class Scenario {
 	private final TrafficProfile trafficProfile;
 	
 	private final ElevatorConfiguration elevatorConfiguration;
+	private AliasTable[][] destinationFloorTables;
 	
 	/**
 	 * Creates a new scenario
@@ -36,6 +37,34 @@ public class Scenario {
 		return this.name;
 	}
 	
+	/**
+	 * Returns the number of elevator cars
+	 */
+	public int getNumElevatorCars() {
+		return this.numElevatorCars;
+	}
+	
+	/**
+	 * Returns the configuration for the elevator cars
+	 */
+	public ElevatorConfiguration getElevatorConfiguration() {
+		return this.elevatorConfiguration;
+	}
+	
+	/**
+	 * Returns the residents on each floor
+	 */
+	public int[] getFloorResidents() {
+		return this.floorResidents.clone();
+	}
+	
+	/**
+	 * Returns the traffic profile
+	 */
+	public TrafficProfile getTrafficProfile() {
+		return this.trafficProfile;
+	}
+	
 	/**
 	 * Creates a new building
 	 */
@@ -46,6 +75,38 @@ public class Scenario {
 			floors[i] = new Floor(i, numResidents, this.trafficProfile);
 		}
 		
-		return new Building(floors, this.numElevatorCars, 0, this.elevatorConfiguration);
+		Building building = new Building(floors, this.numElevatorCars, 0, this.elevatorConfiguration);
+		AliasTable[][] destinationFloorTables = this.getDestinationFloorTables(building);
+		
+		for (Floor floor : floors) {
+			floor.setDestinationFloorTables(destinationFloorTables[floor.getFloorNumber()]);
+		}
+		
+		return building;
+	}
+	
+	/**
+	 * Returns the destination floor tables for each floor and interval. The tables are created the first time,
+	 * and then shared between all the buildings of the scenario.
+	 * @param building A building of the scenario
+	 */
+	private synchronized AliasTable[][] getDestinationFloorTables(Building building) {
+		if (this.destinationFloorTables == null) {
+			Floor[] floors = building.getFloors();
+			AliasTable[][] tables = new AliasTable[floors.length][this.trafficProfile.numIntervals()];
+			
+			for (Floor arrivalFloor : floors) {
+				for (int i = 0; i < this.trafficProfile.numIntervals(); i++) {
+					tables[arrivalFloor.getFloorNumber()][i] = Floor.createDestinationFloorTable(
+						building,
+						arrivalFloor,
+						this.trafficProfile.getInterval(i));
+				}
+			}
+			
+			this.destinationFloorTables = tables;
+		}
+		
+		return this.destinationFloorTables;
 	}
 }
@@ -3,13 +3,19 @@ package elevatorsimulator;
 import elevatorsimulator.schedulers.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class SchedulerCreators {
-    public static final List<SchedulerCreator> creators = new ArrayList<SchedulerCreator>();
+    /**
+     * The schedulers in the order of their algorithm type. The list is read-only so that it can be shared between threads.
+     */
+    public static final List<SchedulerCreator> creators;
 
     static {
-        creators.add(new SchedulerCreator() {
+        List<SchedulerCreator> schedulerCreators = new ArrayList<SchedulerCreator>();
+
+        schedulerCreators.add(new SchedulerCreator() {
             @Override
 
             public SchedulingAlgorithm createScheduler(Building building) {
@@ -17,7 +23,7 @@ public class SchedulerCreators {
             }
         });
 
-        creators.add(new SchedulerCreator() {
+        schedulerCreators.add(new SchedulerCreator() {
             @Override
 
             public SchedulingAlgorithm createScheduler(Building building) {
@@ -25,39 +31,41 @@ public class SchedulerCreators {
             }
         });
 
-        creators.add(new SchedulerCreator() {
+        schedulerCreators.add(new SchedulerCreator() {
             @Override
             public SchedulingAlgorithm createScheduler(Building building) {
                 return new Zoning(building.getElevatorCars().length, building);
             }
         });
 
-        creators.add(new SchedulerCreator() {
+        schedulerCreators.add(new SchedulerCreator() {
             @Override
             public SchedulingAlgorithm createScheduler(Building building) {
                 return new RoundRobin(building, false);
             }
         });
 
-        creators.add(new SchedulerCreator() {
+        schedulerCreators.add(new SchedulerCreator() {
             @Override
             public SchedulingAlgorithm createScheduler(Building building) {
                 return new RoundRobin(building, true);
             }
         });
 
-        creators.add(new SchedulerCreator() {
+        schedulerCreators.add(new SchedulerCreator() {
             @Override
             public SchedulingAlgorithm createScheduler(Building building) {
                 return new ThreePassageGroupElevator(building);
             }
         });
 
-        creators.add(new SchedulerCreator() {
+        schedulerCreators.add(new SchedulerCreator() {
             @Override
             public SchedulingAlgorithm createScheduler(Building building) {
                 return new HighZoning(building.getElevatorCars().length, building);
             }
         });
+
+        creators = Collections.unmodifiableList(schedulerCreators);
     }
 }
@@ -35,6 +35,32 @@ public interface SchedulingAlgorithm {
 	 */
 	public void update(Simulator simulator);
 	
+	/**
+	 * Indicates if the scheduler needs to be updated in the next time step even though there are no hall calls.
+	 * The event-driven mode only skips time steps when no scheduler has pending work.
+	 * @param simulator The simulator
+	 */
+	public default boolean hasPendingWork(Simulator simulator) {
+		return false;
+	}
+	
+	/**
+	 * Indicates if the scheduler only needs to be updated when something has changed, that is
+	 * a hall call was made or handled, a passenger exited, or an elevator car changed state or passed a floor.
+	 * Otherwise the scheduler is updated every time step.
+	 */
+	public default boolean isChangeDriven() {
+		return false;
+	}
+	
+	/**
+	 * Returns the version of the scheduler. Cached results are already invalidated when the code of the scheduler
+	 * class changes, but the version must be increased when its behavior changes through other classes.
+	 */
+	public default int getVersion() {
+		return 1;
+	}
+	
 	/**
 	 * The action to execute when the given elevator car is idle
 	 * @param simulator The simulator
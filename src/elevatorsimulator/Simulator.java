@@ -1,5 +1,6 @@
 package elevatorsimulator;
 import java.util.*;
+import java.util.function.Supplier;
 
 import elevatorsimulator.schedulers.*;
 
@@ -12,6 +13,7 @@ public class Simulator {
 	private final String scenarioName;
 	private final SimulatorSettings settings;
 	private final SimulatorClock clock;
+	private final long simulationTime;
 	
 	private Random random;
 	
@@ -22,11 +24,14 @@ public class Simulator {
 	private final ControlSystem controlSystem;
 	
 	private long passengerId = 0;
+	private long numWaitingPassengers = 0;
+	private long numRidingPassengers = 0;
+	private long nextEventTime = 0;
+	private long numSimulatedSteps = 0;
 
 	private final boolean usingPassengerList;
-	private Deque<Passenger> pre_madeList = null;
-	private final boolean enableLog = true;
-	private final boolean debugMode = false;
+	private final ArrivalSchedule arrivalSchedule;
+	private SimulatorLog log = new ConsoleLog(SimulatorLog.Level.INFO);
 
 //	/**
 //	 * Creates a new simulator
@@ -58,6 +63,31 @@ public class Simulator {
 	 * @param randSeed The random seed
 	 */
 	public Simulator(Scenario scenario, SimulatorSettings settings, SchedulerCreator schedulerCreator, boolean usingPassengerList, long randSeed) {
+		this(scenario, settings, schedulerCreator, usingPassengerList, null, randSeed);
+	}
+	
+	/**
+	 * Creates a new simulator that replays the given arrivals instead of generating them
+	 * @param scenario The scenario
+	 * @param settings The settings
+	 * @param schedulerCreator The scheduler
+	 * @param arrivalSchedule The arrivals, which must not be replayed by any other simulator
+	 * @param randSeed The random seed
+	 */
+	public Simulator(Scenario scenario, SimulatorSettings settings, SchedulerCreator schedulerCreator, ArrivalSchedule arrivalSchedule, long randSeed) {
+		this(scenario, settings, schedulerCreator, true, arrivalSchedule, randSeed);
+	}
+	
+	/**
+	 * Creates a new simulator
+	 * @param scenario The scenario
+	 * @param settings The settings
+	 * @param schedulerCreator The scheduler
+	 * @param usingPassengerList The passengerList
+	 * @param arrivalSchedule The arrivals to replay or null
+	 * @param randSeed The random seed
+	 */
+	private Simulator(Scenario scenario, SimulatorSettings settings, SchedulerCreator schedulerCreator, boolean usingPassengerList, ArrivalSchedule arrivalSchedule, long randSeed) {
 		if (randSeed == -1) {
 			randSeed = System.currentTimeMillis();
 		}
@@ -67,13 +97,37 @@ public class Simulator {
 		this.scenarioName = scenario.getName();
 		this.settings = settings;
 		this.clock = new SimulatorClock(settings.getTimeStep());
+		this.simulationTime = this.clock.secondsToTime(settings.getSimulationTimeInSec());
 		this.building = scenario.createBuilding();
 		this.controlSystem = new ControlSystem(this, schedulerCreator.createScheduler(this.building));
 		this.stats = new SimulatorStats(this);
 		this.usingPassengerList = usingPassengerList;
 
-		if(this.usingPassengerList)
-			pre_madeList = SimulatorInterface.createPre_madePassengerList(this);
+		if (arrivalSchedule != null) {
+			this.arrivalSchedule = arrivalSchedule;
+		} else if (this.usingPassengerList) {
+			this.arrivalSchedule = SimulatorInterface.createArrivalSchedule(this);
+		} else {
+			this.arrivalSchedule = new ArrivalSchedule(this.building.numFloors());
+		}
+		
+		this.createRandomStreams(randSeed);
+	}
+	
+	/**
+	 * Creates the random streams of the floors from the given seed, if common random numbers are used.
+	 * Each floor gets one stream for the arrival times and one for the destinations.
+	 * @param seed The seed or -1 for a random seed
+	 */
+	private void createRandomStreams(long seed) {
+		if (!this.settings.usesCommonRandomNumbers()) {
+			return;
+		}
+		
+		SplittableRandom streams = seed != -1 ? new SplittableRandom(seed) : new SplittableRandom();
+		for (Floor floor : this.building.getFloors()) {
+			floor.setRandomStreams(streams.split(), streams.split());
+		}
 	}
 	
 	/**
@@ -118,9 +172,35 @@ public class Simulator {
 		return controlSystem;
 	}
 
-	public boolean isUsingPassengerList() { return usingPassengerList; }
-	public Deque<Passenger> getPre_madeList() { return pre_madeList; }
+	/**
+	 * Indicates if the arrivals are replayed from a passenger list
+	 */
+	public boolean isUsingPassengerList() {
+		return usingPassengerList;
+	}
+	
+	/**
+	 * Returns the schedule of arrivals. When not using a passenger list, the schedule only contains injected passengers.
+	 */
+	public ArrivalSchedule getArrivalSchedule() {
+		return arrivalSchedule;
+	}
 
+	/**
+	 * Returns the log
+	 */
+	public SimulatorLog getLog() {
+		return log;
+	}
+	
+	/**
+	 * Sets the log
+	 * @param log The log
+	 */
+	public void setLog(SimulatorLog log) {
+		this.log = log;
+	}
+	
 	/**
 	 * Indicates if the stats are exported
 	 */
@@ -146,14 +226,115 @@ public class Simulator {
 		this.stats.update();
 	}
 	
+	/**
+	 * Simulates the next time step. Depending on the mode, the time steps where nothing can happen are skipped.
+	 */
+	private void step() {
+		long numSteps = 1;
+		
+		if (this.settings.getMode() != SimulatorSettings.Mode.FIXED_STEP) {
+			numSteps += this.skipToNextEvent();
+		}
+		
+		moveForward(numSteps * this.clock.getTimeStep());
+		this.numSimulatedSteps++;
+		
+		switch (this.settings.getMode()) {
+		case EVENT_DRIVEN:
+			this.nextEventTime = this.findNextEventTime();
+			break;
+		case IDLE_FAST_FORWARD:
+			if (this.isIdle()) {
+				this.nextEventTime = this.findNextEventTime();
+			}
+			break;
+		default:
+			break;
+		}
+		
+		this.clock.step();
+	}
+	
+	/**
+	 * Returns the number of time steps that have been simulated. Fewer than the steps of the clock if time steps were skipped.
+	 */
+	public long getNumSimulatedSteps() {
+		return this.numSimulatedSteps;
+	}
+	
+	/**
+	 * Indicates if the building is idle, that is no passengers are in the building and all the elevator cars are idle
+	 */
+	private boolean isIdle() {
+		if (!this.isQuiescent()) {
+			return false;
+		}
+		
+		for (Elevator elevator : this.building.getElevatorCars()) {
+			if (elevator.getState() != Elevator.State.IDLE) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Advances the clock to the time step before the one that contains the next event,
+	 * so that the following simulated time step reaches the event
+	 * @return The number of skipped time steps
+	 */
+	private long skipToNextEvent() {
+		long timeStep = this.clock.getTimeStep();
+		long timeLeft = this.nextEventTime - this.clock.timeNow();
+		
+		if (timeLeft <= 0) {
+			return 0;
+		}
+		
+		long numSkipped = (timeLeft + timeStep - 1) / timeStep - 1;
+		
+		if (numSkipped > 0) {
+			this.clock.step(numSkipped);
+		}
+		
+		return numSkipped;
+	}
+	
+	/**
+	 * Finds the time of the next event that changes the state of the simulation
+	 */
+	private long findNextEventTime() {
+		long timeNow = this.clock.timeNow();
+		
+		if (this.controlSystem.hasPendingWork()) {
+			return timeNow;
+		}
+		
+		long eventTime = this.stats.nextEventTime();
+		
+		if (this.canGenerateArrivals()) {
+			eventTime = Math.min(eventTime, this.simulationTime);
+		}
+		
+		for (Floor floor : this.building.getFloors()) {
+			eventTime = Math.min(eventTime, floor.nextEventTime(this));
+		}
+		
+		for (Elevator elevator : this.building.getElevatorCars()) {
+			eventTime = Math.min(eventTime, elevator.nextEventTime(this));
+		}
+		
+		return eventTime;
+	}
+	
 	/**
 	 * Logs the given line
 	 * @param line The line
 	 */
 	public void log(String line) {
-		if (enableLog) {
-			double simulatedTime = (double)this.clock.elapsedSinceRealTime(0) / SimulatorClock.NANOSECONDS_PER_SECOND;
-			System.out.println(this.clock.formattedTime(simulatedTime) + ": " + line);
+		if (this.log.isEnabled(SimulatorLog.Level.INFO)) {
+			this.log.message(this, SimulatorLog.Level.INFO, SimulatorLog.NO_ELEVATOR, line);
 		}
 	}
 	
@@ -163,7 +344,9 @@ public class Simulator {
 	 * @param line The line
 	 */
 	public void elevatorLog(int elevatorId, String line) {
-		this.log("Elevator " + elevatorId + ": " + line);
+		if (this.log.isEnabled(SimulatorLog.Level.INFO)) {
+			this.log.message(this, SimulatorLog.Level.INFO, elevatorId, line);
+		}
 	}
 	
 	/**
@@ -172,62 +355,92 @@ public class Simulator {
 	 * @param line The line
 	 */
 	public void elevatorDebugLog(int elevatorId, String line) {
-		if (this.debugMode) {
-			this.elevatorLog(elevatorId, line);
+		if (this.log.isEnabled(SimulatorLog.Level.DEBUG)) {
+			this.log.message(this, SimulatorLog.Level.DEBUG, elevatorId, line);
 		}
 	}
 	
+	/**
+	 * Logs the given debug line for an elevator. The line is only created if debug lines are logged.
+	 * @param elevatorId The id of the elevator
+	 * @param line Creates the line
+	 */
+	public void elevatorDebugLog(int elevatorId, Supplier<String> line) {
+		if (this.log.isEnabled(SimulatorLog.Level.DEBUG)) {
+			this.log.message(this, SimulatorLog.Level.DEBUG, elevatorId, line.get());
+		}
+	}
+	
+	/**
+	 * Logs the given passenger event
+	 * @param type The type of the event
+	 * @param passenger The passenger
+	 * @param floor The floor where the event happened
+	 * @param elevatorId The id of the elevator car or NO_ELEVATOR
+	 */
+	public void logEvent(SimulatorLog.EventType type, Passenger passenger, int floor, int elevatorId) {
+		this.log.event(this, type, passenger, floor, elevatorId);
+	}
+	
 	/**
 	 * Marks that an arrival has been generated
 	 * @param passenger The passenger
 	 */
 	public void arrivalGenerated(Passenger passenger) {
+		this.numWaitingPassengers++;
 		this.stats.generatedPassenger(passenger);
 	}
 	
+	/**
+	 * Marks that the hall call of the given passenger has been handled by the given elevator car
+	 * @param elevator The elevator car
+	 * @param passenger The passenger
+	 */
+	public void hallCallHandled(Elevator elevator, Passenger passenger) {
+		this.numWaitingPassengers--;
+		this.numRidingPassengers++;
+		this.controlSystem.hallCallHandled(elevator, passenger);
+	}
+	
 	/**
 	 * Marks that the given passenger has exited the given elevator car
 	 * @param elevator The elevator car
 	 * @param passenger The passenger
 	 */
 	public void passengerExited(Elevator elevator, Passenger passenger) {
+		this.numRidingPassengers--;
 		this.stats.passengerExited(elevator, passenger);
 		this.controlSystem.passengerExited(elevator, passenger);
 	}
 	
 	/**
-	 * Indicates if new arrivals can be generated
+	 * Returns the number of passengers waiting on the floors
 	 */
-	public boolean canGenerateArrivals() {
-		return this.clock.simulatedTime() < this.settings.getSimulationTimeInSec() * SimulatorClock.NANOSECONDS_PER_SECOND;
+	public long getNumWaitingPassengers() {
+		return this.numWaitingPassengers;
 	}
-			
+	
 	/**
-	 * Indicates if all floors are empty
+	 * Returns the number of passengers riding in the elevator cars
 	 */
-	private boolean floorsEmpty() {
-		for (Floor floor : this.building.getFloors()) {
-			if (!floor.getWaitingQueue().isEmpty()) {
-				return false;
-			}
-		}
-		
-		return true;
+	public long getNumRidingPassengers() {
+		return this.numRidingPassengers;
 	}
 	
 	/**
-	 * Indicates if all the elevator cars are empty
+	 * Indicates if there are no passengers in the building
 	 */
-	private boolean elevatorsEmpty() {
-		for (Elevator elevator : this.building.getElevatorCars()) {
-			if (!elevator.getPassengers().isEmpty()) {
-				return false;
-			}
-		}
-		
-		return true;
+	public boolean isQuiescent() {
+		return this.numWaitingPassengers == 0 && this.numRidingPassengers == 0;
 	}
 	
+	/**
+	 * Indicates if new arrivals can be generated
+	 */
+	public boolean canGenerateArrivals() {
+		return this.clock.timeNow() < this.simulationTime;
+	}
+			
 	/**
 	 * Runs the simulation
 	 */
@@ -235,11 +448,10 @@ public class Simulator {
 		System.out.println(new Date() + ": Simulation started.");
 		
 		while (true) {
-			moveForward((long)(this.settings.getTimeStep() * SimulatorClock.NANOSECONDS_PER_SECOND));
-			clock.step();
+			this.step();
 			
 			if (!this.canGenerateArrivals()) {
-				if (this.floorsEmpty() && this.elevatorsEmpty()) {
+				if (this.isQuiescent()) {
 					break;
 				}
 			}
@@ -248,6 +460,7 @@ public class Simulator {
 		this.stats.done();
 		
 		System.out.println(new Date() + ": Simulation finished.");		
+		System.out.println("Simulated " + this.numSimulatedSteps + " of " + this.clock.getNumSteps() + " time steps.");
 		System.out.println("--------------------" + this.controlSystem.getSchedulerName() + "--------------------");
 		this.printStats();
 	}
@@ -281,8 +494,14 @@ public class Simulator {
 		
 		this.controlSystem.reset();
 		this.building.reset();
+		this.createRandomStreams(seed);
+		this.arrivalSchedule.reset();
 		this.clock.reset();
 		this.stats.reset();
+		this.nextEventTime = 0;
+		this.numSimulatedSteps = 0;
+		this.numWaitingPassengers = 0;
+		this.numRidingPassengers = 0;
 		this.run = false;
 	}
 	
@@ -292,11 +511,10 @@ public class Simulator {
 	 */
 	public boolean advance() {
 		if (this.run) {
-			moveForward((long)(this.settings.getTimeStep() * SimulatorClock.NANOSECONDS_PER_SECOND));
-			this.clock.step();
+			this.step();
 			
 			if (!this.canGenerateArrivals()) {				
-				if (this.floorsEmpty() && this.elevatorsEmpty()) {
+				if (this.isQuiescent()) {
 					this.stats.done();
 					this.run = false;				
 					return false;
@@ -10,37 +10,55 @@ import java.util.stream.Stream;
 public class SimulatorClock {
 	public static final double TIME_SCALE = 1e-9;
 	public static final long NANOSECONDS_PER_SECOND = 1000000000;		
-	private final double timeStep;
-	private double simulatedTime = 0.0;
+	private final long timeStep;
+	private long numSteps = 0;
 	
 	/**
 	 * Creates a new simulator clock
-	 * @param timeStep The time step
+	 * @param timeStep The time step in seconds
 	 */
 	public SimulatorClock(double timeStep) {
-		this.timeStep = timeStep;
-		this.simulatedTime = 0;
+		this.timeStep = Math.round(timeStep * NANOSECONDS_PER_SECOND);
+		this.numSteps = 0;
+		
+		if (this.timeStep <= 0) {
+			throw new IllegalArgumentException("The time step must be at least one nanosecond.");
+		}
+	}
+	
+	/**
+	 * Returns the length of a time step in the clocks time
+	 */
+	public long getTimeStep() {
+		return this.timeStep;
+	}
+	
+	/**
+	 * Returns the number of time steps that has been simulated
+	 */
+	public long getNumSteps() {
+		return this.numSteps;
 	}
 	
 	/**
 	 * Returns the current time in seconds
 	 */
 	public double timeNowSec() {
-		return this.simulatedTime;
+		return this.asSecond(this.timeNow());
 	}
 	
 	/**
 	 * Returns the current time
 	 */
 	public long timeNow() {
-		return (long)(this.simulatedTime * NANOSECONDS_PER_SECOND);
+		return this.numSteps * this.timeStep;
 	}
 	
 	/**
 	 * Returns the amount of time that has been simulated
 	 */
 	public long simulatedTime() {
-		return (long)(this.simulatedTime * NANOSECONDS_PER_SECOND);
+		return this.timeNow();
 	}
  	
 	/**
@@ -72,7 +90,7 @@ public class SimulatorClock {
 	 * @param seconds The number of seconds
 	 */
 	public long secondsToTime(double seconds) {
-		return (long)(seconds / TIME_SCALE);
+		return Math.round(seconds * NANOSECONDS_PER_SECOND);
 	}
 	
 	/**
@@ -80,7 +98,7 @@ public class SimulatorClock {
 	 * @param time The number of seconds
 	 */
 	public long minutesToTime(double minutes) {
-		return (long)((minutes * 60) / TIME_SCALE);
+		return Math.round(minutes * 60 * NANOSECONDS_PER_SECOND);
 	}
 	
 	/**
@@ -120,13 +138,21 @@ public class SimulatorClock {
 	 * Resets the clock
 	 */
 	public void reset() {
-		this.simulatedTime = 0;
+		this.numSteps = 0;
 	}
 	
 	/**
 	 * Advances the simulation by the time step
 	 */
 	public void step() {
-		this.simulatedTime += this.timeStep;
+		this.numSteps++;
+	}
+	
+	/**
+	 * Advances the simulation by the given number of time steps
+	 * @param numSteps The number of time steps
+	 */
+	public void step(long numSteps) {
+		this.numSteps += numSteps;
 	}
 }
@@ -159,8 +159,8 @@ public class SimulatorInterface {
         return new SimulatorParams(generateType, distributionType, algorithmType);
     }
 
-    public static Deque<Passenger> createPre_madePassengerList(Simulator simulator) {
-        Deque<Passenger> passengerList = new LinkedList<Passenger>();
+    public static ArrivalSchedule createArrivalSchedule(Simulator simulator) {
+        ArrivalSchedule schedule = new ArrivalSchedule(simulator.getBuilding().numFloors());
         String fileName = "\\passenger_list.csv";
 
         List<List<String>> csv = readCSV(path + fileName);
@@ -170,10 +170,10 @@ public class SimulatorInterface {
         words.next();
         while(words.hasNext()) {
             List<String> data = words.next();
-            passengerList.add(new Passenger(Long.parseLong(data.get(1)), Integer.parseInt(data.get(2)),
-                    Integer.parseInt(data.get(3)), 1, simulator.getClock().timeFromFormattedTime(data.get(0))));
+            schedule.add(Long.parseLong(data.get(1)), Integer.parseInt(data.get(2)),
+                    Integer.parseInt(data.get(3)), simulator.getClock().timeFromFormattedTime(data.get(0)));
         }
 
-        return passengerList;
+        return schedule;
     }
 }
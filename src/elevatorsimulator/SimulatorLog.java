@@ -0,0 +1,82 @@
+package elevatorsimulator;
+
+/**
+ * Represents a sink for the log of the simulator
+ */
+public interface SimulatorLog {
+	/**
+	 * The log levels
+	 */
+	public static enum Level {
+		DEBUG,
+		INFO
+	}
+	
+	/**
+	 * The types of passenger events
+	 */
+	public static enum EventType {
+		/**
+		 * A passenger arrived on a floor
+		 */
+		ARRIVAL,
+		/**
+		 * A passenger was picked up by an elevator car
+		 */
+		PICKUP,
+		/**
+		 * A passenger exited an elevator car
+		 */
+		EXIT
+	}
+	
+	/**
+	 * The elevator id used for entries that are not related to an elevator car
+	 */
+	public static final int NO_ELEVATOR = -1;
+	
+	/**
+	 * A log that discards everything
+	 */
+	public static final SimulatorLog NONE = new SimulatorLog() {
+		@Override
+		public boolean isEnabled(Level level) {
+			return false;
+		}
+		
+		@Override
+		public void message(Simulator simulator, Level level, int elevatorId, String line) {
+			
+		}
+		
+		@Override
+		public void event(Simulator simulator, EventType type, Passenger passenger, int floor, int elevatorId) {
+			
+		}
+	};
+	
+	/**
+	 * Indicates if the given level is logged. Entries of disabled levels are never constructed.
+	 * @param level The level
+	 */
+	public boolean isEnabled(Level level);
+	
+	/**
+	 * Logs the given line
+	 * @param simulator The simulator
+	 * @param level The level
+	 * @param elevatorId The id of the elevator car or NO_ELEVATOR
+	 * @param line The line
+	 */
+	public void message(Simulator simulator, Level level, int elevatorId, String line);
+	
+	/**
+	 * Logs the given passenger event. Passenger events have the INFO level.
+	 * @param simulator The simulator
+	 * @param type The type of the event
+	 * @param passenger The passenger
+	 * @param floor The floor where the event happened
+	 * @param elevatorId The id of the elevator car or NO_ELEVATOR
+	 */
+	public void event(Simulator simulator, EventType type, Passenger passenger, int floor, int elevatorId);
+}
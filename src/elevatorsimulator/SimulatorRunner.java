@@ -1,8 +1,17 @@
 package elevatorsimulator;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import elevatorsimulator.schedulers.*;
 
@@ -16,22 +25,305 @@ public class SimulatorRunner {
 	private final SimulatorSettings settings;
 	private final List<Scenario> scenarios;
 	private final List<SchedulerCreator> schedulerCreators;
+	private final ExecutorService executor;
+	private ResultCache resultCache;
+	
+	private StatsSummary.Metric stoppingMetric;
+	private double targetRelativePrecision;
+	private int maxNumRuns;
 	
 	public final static int NUM_DATA_RUNS = 10;
 	public final static long DATA_RUN_SEED = 1337 * 4711;
 	
 	/**
-	 * Creates a new simulator runner
+	 * The result of a single run
+	 */
+	private static class RunResult {
+		public final String name;
+		public final StatsInterval globalStats;
+		public final List<StatsInterval> hourStats;
+		
+		public RunResult(String name, StatsInterval globalStats, List<StatsInterval> hourStats) {
+			this.name = name;
+			this.globalStats = globalStats;
+			this.hourStats = hourStats;
+		}
+	}
+	
+	/**
+	 * The runs of a scheduler in a scenario. Each finished run takes in the finished runs in seed order, and the last run
+	 * of a batch submits the next batch if more runs are needed, so the runs of different schedulers and scenarios
+	 * do not wait for each other.
+	 */
+	private class SchedulerRuns {
+		private final Scenario scenario;
+		private final SchedulerCreator schedulerCreator;
+		private final long[] randSeeds;
+		private final int batchSize;
+		
+		private final RunResult[] finishedRuns;
+		private final List<Future<Void>> runs = new ArrayList<Future<Void>>();
+		private final List<RunResult> results = new ArrayList<RunResult>();
+		private final StatsSummary summary = new StatsSummary();
+		private final CompletableFuture<Void> completion = new CompletableFuture<Void>();
+		private int numSubmitted = 0;
+		
+		/**
+		 * Creates the runs of the given scheduler in the given scenario
+		 * @param scenario The scenario
+		 * @param schedulerCreator The scheduler
+		 * @param randSeeds The seeds of the runs
+		 * @param batchSize The number of additional runs to submit at a time when the minimum is not enough
+		 */
+		public SchedulerRuns(Scenario scenario, SchedulerCreator schedulerCreator, long[] randSeeds, int batchSize) {
+			this.scenario = scenario;
+			this.schedulerCreator = schedulerCreator;
+			this.randSeeds = randSeeds;
+			this.batchSize = batchSize;
+			this.finishedRuns = new RunResult[randSeeds.length];
+		}
+		
+		/**
+		 * Submits the minimum number of runs
+		 */
+		public synchronized void start() {
+			if (SimulatorRunner.this.isDone(this.summary)) {
+				this.completion.complete(null);
+			} else {
+				this.submitRuns(SimulatorRunner.this.numRuns);
+			}
+		}
+		
+		/**
+		 * Submits the given number of runs after the ones already submitted
+		 * @param numRuns The number of runs
+		 */
+		private void submitRuns(int numRuns) {
+			int end = Math.min(this.numSubmitted + Math.max(numRuns, 1), this.randSeeds.length);
+			
+			while (this.numSubmitted < end) {
+				//Counted before submitting, since the run finishes before it returns when there is no executor
+				int runIndex = this.numSubmitted++;
+				long seed = this.randSeeds[runIndex];
+				
+				this.runs.add(submit(SimulatorRunner.this.executor, () -> {
+					try {
+						this.runFinished(runIndex, SimulatorRunner.this.runSimulation(this.scenario, this.schedulerCreator, seed));
+					} catch (Throwable e) {
+						this.completion.completeExceptionally(e);
+					}
+					
+					return null;
+				}));
+			}
+		}
+		
+		/**
+		 * Takes in the finished runs in seed order until enough runs have been made
+		 * @param runIndex The index of the finished run
+		 * @param result The result of the run
+		 */
+		private synchronized void runFinished(int runIndex, RunResult result) {
+			if (this.completion.isDone()) {
+				return;
+			}
+			
+			this.finishedRuns[runIndex] = result;
+			
+			while (this.results.size() < this.numSubmitted && this.finishedRuns[this.results.size()] != null) {
+				RunResult nextResult = this.finishedRuns[this.results.size()];
+				this.results.add(nextResult);
+				this.summary.add(nextResult.globalStats);
+				
+				if (SimulatorRunner.this.isDone(this.summary)) {
+					//Runs submitted ahead that turned out not to be needed
+					for (int i = this.results.size(); i < this.runs.size(); i++) {
+						this.runs.get(i).cancel(false);
+					}
+					
+					this.completion.complete(null);
+					return;
+				}
+			}
+			
+			//Without an executor, the runs are submitted by the waiting thread instead, so that they do not nest
+			if (this.results.size() == this.numSubmitted && SimulatorRunner.this.executor != null) {
+				this.submitRuns(this.batchSize);
+			}
+		}
+		
+		/**
+		 * Waits until enough runs have been made and returns their results in seed order
+		 */
+		public List<RunResult> getResults() {
+			while (SimulatorRunner.this.executor == null && !this.completion.isDone()) {
+				synchronized (this) {
+					this.submitRuns(this.batchSize);
+				}
+			}
+			
+			getResult(this.completion);
+			return this.results;
+		}
+		
+		/**
+		 * Returns the summary of the runs
+		 */
+		public StatsSummary getSummary() {
+			return this.summary;
+		}
+	}
+	
+	/**
+	 * Creates a new simulator runner that executes the runs one after another
 	 * @param numRuns The number of runs
 	 * @param settings The settings to use
 	 * @param scenarios The scenarios
 	 * @param schedulerCreators The schedulers to use
 	 */
 	public SimulatorRunner(int numRuns, SimulatorSettings settings, List<Scenario> scenarios, List<SchedulerCreator> schedulerCreators) {
+		this(numRuns, settings, scenarios, schedulerCreators, null);
+	}
+	
+	/**
+	 * Creates a new simulator runner that executes the runs on the given executor.
+	 * The results are the same as when running them one after another.
+	 * @param numRuns The number of runs
+	 * @param settings The settings to use
+	 * @param scenarios The scenarios
+	 * @param schedulerCreators The schedulers to use
+	 * @param executor The executor or null to run on the calling thread
+	 */
+	public SimulatorRunner(int numRuns, SimulatorSettings settings, List<Scenario> scenarios, List<SchedulerCreator> schedulerCreators, ExecutorService executor) {
 		this.numRuns = numRuns;
 		this.settings = settings;
 		this.scenarios = scenarios;
 		this.schedulerCreators = schedulerCreators;
+		this.executor = executor;
+		this.maxNumRuns = numRuns;
+	}
+	
+	/**
+	 * Sets the cache of the results of runs. Runs that are in the cache are not run again.
+	 * @param resultCache The cache or null to run every run
+	 */
+	public void setResultCache(ResultCache resultCache) {
+		this.resultCache = resultCache;
+	}
+	
+	/**
+	 * Makes the number of runs adaptive. The runs of each scenario and scheduler continue until the half width
+	 * of the 95% confidence interval of the given metric, relative to its mean, is at most the given precision,
+	 * or until the maximum number of runs is reached. The number of runs given when creating the runner is the minimum.
+	 * Whether to stop is decided in seed order, so the results do not depend on the executor.
+	 * @param metric The metric
+	 * @param targetRelativePrecision The target relative half width of the confidence interval, for example 0.05
+	 * @param maxNumRuns The maximum number of runs
+	 */
+	public void setAdaptiveRuns(StatsSummary.Metric metric, double targetRelativePrecision, int maxNumRuns) {
+		if (targetRelativePrecision <= 0) {
+			throw new IllegalArgumentException("The target precision must be > 0.");
+		}
+		
+		if (maxNumRuns < this.numRuns) {
+			throw new IllegalArgumentException("The maximum number of runs must be >= the minimum number of runs.");
+		}
+		
+		this.stoppingMetric = metric;
+		this.targetRelativePrecision = targetRelativePrecision;
+		this.maxNumRuns = maxNumRuns;
+	}
+	
+	/**
+	 * Returns the half width of the 95% confidence interval of the given statistics relative to the mean
+	 * @param statistics The statistics
+	 */
+	private static double relativePrecision(RunningStatistics statistics) {
+		return statistics.getConfidenceHalfWidth95() / Math.abs(statistics.getMean());
+	}
+	
+	/**
+	 * Indicates if enough runs has been made for the given summary
+	 * @param summary The summary of the runs so far
+	 */
+	private boolean isDone(StatsSummary summary) {
+		if (summary.getNumRuns() >= this.maxNumRuns) {
+			return true;
+		}
+		
+		if (summary.getNumRuns() < this.numRuns) {
+			return false;
+		}
+		
+		//NaN, when there are too few values, is never precise enough
+		return this.stoppingMetric == null
+			|| relativePrecision(summary.getStatistics(this.stoppingMetric)) <= this.targetRelativePrecision;
+	}
+	
+	/**
+	 * Runs a single simulation
+	 * @param scenario The scenario
+	 * @param schedulerCreator The scheduler
+	 * @param seed The seed
+	 */
+	private RunResult runSimulation(Scenario scenario, SchedulerCreator schedulerCreator, long seed) {
+		String key = null;
+		if (this.resultCache != null) {
+			//Only the scheduler is needed for the key, so the simulator is not created when the run is cached
+			SchedulingAlgorithm scheduler = schedulerCreator.createScheduler(scenario.createBuilding());
+			key = ResultCache.key(scenario, this.settings, scheduler, seed);
+			ResultCache.Result cachedResult = this.resultCache.get(key);
+			
+			if (cachedResult != null) {
+				return new RunResult(scenario.getName() + "-" + scheduler, cachedResult.getGlobalStats(), cachedResult.getHourStats());
+			}
+		}
+		
+		Simulator simulator = new Simulator(scenario, this.settings, schedulerCreator, false, seed);
+		simulator.setExportStats(false);
+		simulator.setLog(SimulatorLog.NONE);
+		simulator.run();
+		
+		RunResult result = new RunResult(
+			simulator.getSimulationName(),
+			simulator.getStats().getGlobalInterval(),
+			simulator.getStats().getStatsIntervals());
+		
+		if (this.resultCache != null) {
+			this.resultCache.put(key, new ResultCache.Result(result.globalStats, result.hourStats));
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Submits the given task to the given executor, or runs it directly if there is no executor
+	 * @param executor The executor or null
+	 * @param task The task
+	 */
+	static <T> Future<T> submit(ExecutorService executor, Callable<T> task) {
+		if (executor != null) {
+			return executor.submit(task);
+		}
+		
+		FutureTask<T> future = new FutureTask<T>(task);
+		future.run();
+		return future;
+	}
+	
+	/**
+	 * Waits for the result of the given run
+	 * @param future The future of the run
+	 */
+	static <T> T getResult(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a run.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A run failed.", e.getCause());
+		}
 	}
 		
 	/**
@@ -40,37 +332,66 @@ public class SimulatorRunner {
 	public void run() {
 		Random seedGenerator = new Random(DATA_RUN_SEED);
 		
-		long[] randSeeds = new long[this.numRuns];
-		for (int i = 0; i < this.numRuns; i++) {
+		long[] randSeeds = new long[this.maxNumRuns];
+		for (int i = 0; i < this.maxNumRuns; i++) {
 			randSeeds[i] = seedGenerator.nextLong();
 		}
 		
+		//The number of additional runs to submit at a time when the minimum is not enough
+		int batchSize = this.executor != null ? Math.max(this.numRuns, 1) : 1;
+		
+		//Start the runs of every scheduler in every scenario first, so that they can execute concurrently
+		List<List<SchedulerRuns>> scenarioRuns = new ArrayList<List<SchedulerRuns>>();
 		for (Scenario scenario : this.scenarios) {
-			System.out.println("----------------Running scenario " + scenario.getName() +  "----------------");
-						
+			List<SchedulerRuns> schedulerRuns = new ArrayList<SchedulerRuns>();
+			
 			for (SchedulerCreator schedulerCreator : this.schedulerCreators) {
+				SchedulerRuns runs = new SchedulerRuns(scenario, schedulerCreator, randSeeds, batchSize);
+				runs.start();
+				schedulerRuns.add(runs);
+			}
+			
+			scenarioRuns.add(schedulerRuns);
+		}
+		
+		for (int scenarioIndex = 0; scenarioIndex < this.scenarios.size(); scenarioIndex++) {
+			Scenario scenario = this.scenarios.get(scenarioIndex);
+			System.out.println("----------------Running scenario " + scenario.getName() +  "----------------");
+			
+			for (int schedulerIndex = 0; schedulerIndex < this.schedulerCreators.size(); schedulerIndex++) {
+				SchedulerRuns runs = scenarioRuns.get(scenarioIndex).get(schedulerIndex);
 				List<StatsInterval> stats = new ArrayList<StatsInterval>();
 				List<List<StatsInterval>> hourStats = new ArrayList<List<StatsInterval>>();
+				StatsSummary summary = runs.getSummary();
 				String name = "";
 				
-				for (int i = 0; i < this.numRuns; i++) {
-					Simulator simulator = new Simulator(scenario, this.settings, schedulerCreator, false, randSeeds[i]);
-					simulator.setExportStats(false);
-					simulator.run();
-					stats.add(simulator.getStats().getGlobalInterval());
-					hourStats.add(simulator.getStats().getStatsIntervals());
+				for (RunResult result : runs.getResults()) {
+					stats.add(result.globalStats);
+					hourStats.add(result.hourStats);
 					
 					if (name == "") {
-						name = simulator.getSimulationName();
+						name = result.name;
 					}
 				}
 				
+				if (this.stoppingMetric != null) {
+					RunningStatistics statistics = summary.getStatistics(this.stoppingMetric);
+					System.out.println(name + ": " + summary.getNumRuns() + " runs, "
+						+ this.stoppingMetric + " " + statistics.getMean() + " +- " + statistics.getConfidenceHalfWidth95()
+						+ " (" + (relativePrecision(statistics) * 100) + "%)");
+				}
+				
 				List<StatsInterval> averageStats = new ArrayList<StatsInterval>();
 				averageStats.add(StatsInterval.average(stats));
 				StatsInterval.exportStats(name, averageStats, SimulatorStats.INTERVAL_LENGTH_SEC);
 				
 				List<StatsInterval> averageHourStats = StatsInterval.averageHours(hourStats);			
 				StatsInterval.exportStats(name + "-Hour", averageHourStats, SimulatorStats.INTERVAL_LENGTH_SEC);
+				
+				List<StatsSummary> summaries = new ArrayList<StatsSummary>();
+				summaries.add(summary);
+				StatsSummary.exportSummaries(name + "-Summary", summaries);
+				StatsSummary.exportSummaries(name + "-Hour-Summary", StatsSummary.summarizeHours(hourStats, summary.getMetrics()));
 			}
 			
 			System.out.println("----------------End scenario----------------");
@@ -124,8 +445,20 @@ public class SimulatorRunner {
 		});
 		
 		SimulatorSettings settings = new SimulatorSettings(0.01, 24 * 60 * 60);	
-		SimulatorRunner runner = new SimulatorRunner(NUM_DATA_RUNS, settings, scenarios, schedulerCreators);
-		runner.run();
+		ExecutorService executor = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		SimulatorRunner runner = new SimulatorRunner(NUM_DATA_RUNS, settings, scenarios, schedulerCreators, executor);
+		
+		//Reuse the results of earlier runs only when asked to
+		if (Arrays.asList(args).contains("--cache")) {
+			runner.setResultCache(new ResultCache(new File("data/cache"), 256L * 1024 * 1024));
+		}
+//		runner.setAdaptiveRuns(StatsSummary.Metric.AVERAGE_WAIT_TIME, 0.05, 5 * NUM_DATA_RUNS);
+		
+		try {
+			runner.run();
+		} finally {
+			executor.shutdown();
+		}
 	}
 
 	public void createPassengerList() {
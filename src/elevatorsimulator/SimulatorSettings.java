@@ -8,6 +8,29 @@ package elevatorsimulator;
 public class SimulatorSettings {
 	private final double timeStep;
 	private final double simulationTimeInSec;
+	private final Mode mode;
+	private final boolean commonRandomNumbers;
+	
+	/**
+	 * The ways the simulator can advance the time
+	 */
+	public static enum Mode {
+		/**
+		 * Updates the whole building every time step
+		 */
+		FIXED_STEP,
+		/**
+		 * Jumps directly to the next time step where anything can happen: an arrival, a state change of a car,
+		 * a passenger boarding, a change seen by the scheduler or the end of a stats interval.
+		 * The time steps are still on the fixed grid, and the next event is found by asking every floor and car
+		 * after each simulated time step rather than from an event queue.
+		 */
+		EVENT_DRIVEN,
+		/**
+		 * Updates every time step, but jumps to the next arrival while the building is idle
+		 */
+		IDLE_FAST_FORWARD
+	}
 	
 	/**
 	 * Creates new settings
@@ -15,8 +38,31 @@ public class SimulatorSettings {
 	 * @param simulationTimeInSec The simulation time in seconds
 	 */
 	public SimulatorSettings(double timeStep, double simulationTimeInSec) {
+		this(timeStep, simulationTimeInSec, Mode.FIXED_STEP);
+	}
+	
+	/**
+	 * Creates new settings
+	 * @param timeStep The time step
+	 * @param simulationTimeInSec The simulation time in seconds
+	 * @param mode The way the simulator advances the time
+	 */
+	public SimulatorSettings(double timeStep, double simulationTimeInSec, Mode mode) {
+		this(timeStep, simulationTimeInSec, mode, false);
+	}
+	
+	/**
+	 * Creates new settings
+	 * @param timeStep The time step
+	 * @param simulationTimeInSec The simulation time in seconds
+	 * @param mode The way the simulator advances the time
+	 * @param commonRandomNumbers Indicates if each floor uses its own random streams
+	 */
+	public SimulatorSettings(double timeStep, double simulationTimeInSec, Mode mode, boolean commonRandomNumbers) {
 		this.timeStep = timeStep;
 		this.simulationTimeInSec = simulationTimeInSec;
+		this.mode = mode;
+		this.commonRandomNumbers = commonRandomNumbers;
 	}
 
 	/**
@@ -31,5 +77,21 @@ public class SimulatorSettings {
 	 */
 	public double getSimulationTimeInSec() {
 		return simulationTimeInSec;
-	}		
+	}
+	
+	/**
+	 * Returns the way the simulator advances the time
+	 */
+	public Mode getMode() {
+		return mode;
+	}
+	
+	/**
+	 * Indicates if each floor draws its arrival times and destinations from its own random streams, derived from the seed.
+	 * The arrivals of a seed are then the same for every scheduler, which makes comparisons of schedulers more precise.
+	 * Otherwise all the floors share the random generator of the simulator.
+	 */
+	public boolean usesCommonRandomNumbers() {
+		return commonRandomNumbers;
+	}
 }
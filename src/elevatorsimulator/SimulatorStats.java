@@ -24,6 +24,8 @@ public class SimulatorStats {
 	private int intervalNum = 0;
 	
 	private StatsInterval currentStatsInterval;
+	private long currentIntervalStart = 0;
+	private final long intervalLength;
 	private final List<StatsInterval> statsIntervals = new ArrayList<StatsInterval>();
 	
 	/**
@@ -43,6 +45,7 @@ public class SimulatorStats {
 		this.passengerFloorArrivals = new int[numFloors];
 		this.passengerFloorExits = new int[numFloors];
 		this.elevators = simulator.getBuilding().getElevatorCars();
+		this.intervalLength = this.clock.secondsToTime(INTERVAL_LENGTH_SEC);
 		
 		this.globalInterval = StatsInterval.newTimeInterval(simulator, 0, this.elevators.length);
 		this.pollInterval = StatsInterval.newPollInterval(simulator, 0, this.elevators.length);
@@ -117,6 +120,9 @@ public class SimulatorStats {
 		double rideTimeSec = this.clock.asSecond(passenger.rideTime(this.clock));
 		statsInterval.increaseTotalRideTime(rideTimeSec);
 		
+		statsInterval.getWaitTimeHistogram().record(waitTimeSec);
+		statsInterval.getRideTimeHistogram().record(rideTimeSec);
+		
 		if (waitTimeSec > 60) {
 			statsInterval.increaseNumWaitsOver60s();
 		}
@@ -217,22 +223,29 @@ public class SimulatorStats {
 	 * Updates the statistics
 	 */
 	public void update() {
-		double timeNow = this.simulator.getClock().timeNowSec();
-		double duration = timeNow - this.currentStatsInterval.getStartTime();
-		if (duration >= INTERVAL_LENGTH_SEC) {
+		long timeNow = this.clock.timeNow();
+		if (timeNow - this.currentIntervalStart >= this.intervalLength) {
+			this.currentStatsInterval.close();
 			this.statsIntervals.add(this.currentStatsInterval);
-			this.currentStatsInterval = StatsInterval.newTimeInterval(simulator, timeNow, this.elevators.length);
+			this.currentIntervalStart = timeNow;
+			this.currentStatsInterval = StatsInterval.newTimeInterval(simulator, this.clock.asSecond(timeNow), this.elevators.length);
 		}
-		// update energy consumption of each Interval
-		globalInterval.updateEnergyConsumption();
-		currentStatsInterval.updateEnergyConsumption();
-		pollInterval.updateEnergyConsumption();
+	}
+	
+	/**
+	 * Returns the time when the next stats interval starts
+	 */
+	public long nextEventTime() {
+		return this.currentIntervalStart + this.intervalLength;
 	}
 	
 	/**
 	 * Marks that the simulation is finished
 	 */
 	public void done() {
+		this.globalInterval.close();
+		this.currentStatsInterval.close();
+		this.pollInterval.close();
 		this.statsIntervals.add(this.currentStatsInterval);
 	}
 	
@@ -247,6 +260,7 @@ public class SimulatorStats {
 	 * Resets the poll interval
 	 */
 	public void resetPollInterval() {
+		this.pollInterval.close();
 		this.pollInterval = StatsInterval.newPollInterval(simulator, this.intervalNum++, this.elevators.length);
 	}
 	
@@ -258,6 +272,7 @@ public class SimulatorStats {
 		this.globalInterval = StatsInterval.newTimeInterval(simulator, 0, this.elevators.length);
 		this.pollInterval = StatsInterval.newPollInterval(simulator, 0, this.elevators.length);
 		this.currentStatsInterval = StatsInterval.newTimeInterval(simulator, 0, this.elevators.length);
+		this.currentIntervalStart = 0;
 		this.statsIntervals.clear();
 		
 		for (int i = 0; i < passengerFloorArrivals.length; i++) {
@@ -24,6 +24,7 @@ public class StatisticTools {
 					name.startsWith(scenarioName)
 					&& !name.equals(scenarioName + ".csv")
 					&& !name.endsWith("-Hour.csv")
+					&& !name.endsWith("-Summary.csv")
 					&& !name.endsWith("-SchedulerUsage.csv")
 					&& !name.endsWith("-LearningASWT.csv");
 			}
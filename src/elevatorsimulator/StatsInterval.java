@@ -1,8 +1,11 @@
 package elevatorsimulator;
 
 import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,6 +19,7 @@ public class StatsInterval {
 	private final Simulator simulator;
 	private final double startTime;
 	private final int num;
+	private int numRuns = 1;
 	
 	private long numGenerated;
 	private long numExists;
@@ -29,11 +33,18 @@ public class StatsInterval {
 	private double totalRideTime;
 	private long numWaitsOver60s;
 	private double longestWaitTime = 0;
+	private final Histogram waitTimeHistogram = new Histogram();
+	private final Histogram rideTimeHistogram = new Histogram();
 	
 	private final int[] elevatorCarDistribution;
 
 	private final EnergyConsumption[] elevatorEnergyConsumption;
 	
+	/**
+	 * The percentiles of the wait and ride times that are exported
+	 */
+	private static final double[] EXPORTED_PERCENTILES = { 50, 90, 99 };
+	
 	/**
 	 * Creates a new interval
 	 * @param startTime The start time of the interval
@@ -44,10 +55,7 @@ public class StatsInterval {
 		this.startTime = startTime;
 		this.num = -1;
 		this.elevatorCarDistribution = new int[numElevators];
-		this.elevatorEnergyConsumption = new EnergyConsumption[numElevators];
-		for(int i = 0; i < numElevators; i++) {
-			this.elevatorEnergyConsumption[i] = new EnergyConsumption(simulator.getBuilding().getElevatorCars()[i]);
-		}
+		this.elevatorEnergyConsumption = createEnergyConsumption(simulator, numElevators);
 	}
 	
 	/**
@@ -60,10 +68,26 @@ public class StatsInterval {
 		this.num = num;
 		this.startTime = -1;
 		this.elevatorCarDistribution = new int[numElevators];
-		this.elevatorEnergyConsumption = new EnergyConsumption[numElevators];
-		for(int i = 0; i < numElevators; i++) {
-			this.elevatorEnergyConsumption[i] = new EnergyConsumption(simulator.getBuilding().getElevatorCars()[i]);
+		this.elevatorEnergyConsumption = createEnergyConsumption(simulator, numElevators);
+	}
+	
+	/**
+	 * Creates the energy consumption of the elevator cars, starting now
+	 * @param simulator The simulator or null if the interval is not measured
+	 * @param numElevators The number of elevator cars
+	 */
+	private static EnergyConsumption[] createEnergyConsumption(Simulator simulator, int numElevators) {
+		EnergyConsumption[] energyConsumption = new EnergyConsumption[numElevators];
+		
+		for (int i = 0; i < numElevators; i++) {
+			if (simulator != null) {
+				energyConsumption[i] = new EnergyConsumption(simulator.getBuilding().getElevatorCars()[i], simulator.getClock());
+			} else {
+				energyConsumption[i] = new EnergyConsumption(0);
+			}
 		}
+		
+		return energyConsumption;
 	}
 	
 	/**
@@ -91,6 +115,21 @@ public class StatsInterval {
 		return this.startTime;
 	}
 
+	/**
+	 * Returns the number of runs that the interval contains the totals of
+	 */
+	public int getNumRuns() {
+		return this.numRuns;
+	}
+	
+	/**
+	 * Returns the given total of the interval per run
+	 * @param total The total
+	 */
+	public double perRun(double total) {
+		return total / this.numRuns;
+	}
+	
 	/**
 	 * Returns the interval number
 	 */
@@ -229,6 +268,20 @@ public class StatsInterval {
 		this.numWaitsOver60s++;
 	}
 	
+	/**
+	 * Returns the histogram of the wait times
+	 */
+	public Histogram getWaitTimeHistogram() {
+		return this.waitTimeHistogram;
+	}
+	
+	/**
+	 * Returns the histogram of the ride times
+	 */
+	public Histogram getRideTimeHistogram() {
+		return this.rideTimeHistogram;
+	}
+	
 	/**
 	 * Returns the longest wait time
 	 */
@@ -271,13 +324,32 @@ public class StatsInterval {
 		return this.elevatorCarDistribution;
 	}
 
+	/**
+	 * Returns the energy consumption of the elevator cars
+	 */
 	public EnergyConsumption[] getElevatorEnergyConsumption() {
 		return this.elevatorEnergyConsumption;
 	}
-
-	public void updateEnergyConsumption() {
-		for(EnergyConsumption ec : elevatorEnergyConsumption) {
-			ec.update();
+	
+	/**
+	 * Returns the total energy consumption of all elevator cars
+	 */
+	public double totalEnergyConsumption() {
+		double total = 0;
+		
+		for (EnergyConsumption energyConsumption : this.elevatorEnergyConsumption) {
+			total += energyConsumption.getConsumption();
+		}
+		
+		return total;
+	}
+	
+	/**
+	 * Marks that the interval has ended, which fixes the energy consumption
+	 */
+	public void close() {
+		for (EnergyConsumption energyConsumption : this.elevatorEnergyConsumption) {
+			energyConsumption.close();
 		}
 	}
 	
@@ -290,14 +362,18 @@ public class StatsInterval {
 	}
 	
 	/**
-	 * Averages the given intervals and returns a new interval
+	 * Averages the given intervals and returns a new interval.
+	 * The new interval contains the totals of all the runs of the intervals, so that the averages and
+	 * percentiles are over all the passengers, and the exported counts are the means per run.
 	 * @param intervals The intervals
 	 */
 	public static StatsInterval average(List<StatsInterval> intervals) {
+		double[] totalEnergyConsumption = new double[intervals.get(0).elevatorEnergyConsumption.length];
 		StatsInterval averageInterval = StatsInterval.newTimeInterval(
-			null, // useless parameter
+			null,
 			intervals.get(0).startTime,
 			intervals.get(0).elevatorCarDistribution.length);
+		averageInterval.numRuns = 0;
 		
 		for (StatsInterval interval : intervals) {
 			averageInterval.numGenerated += interval.numGenerated;
@@ -309,24 +385,21 @@ public class StatsInterval {
 			averageInterval.totalSquaredWaitTime += interval.totalSquaredWaitTime;
 			averageInterval.totalRideTime += interval.totalRideTime;
 			averageInterval.numWaitsOver60s += interval.numWaitsOver60s;
+			averageInterval.numRuns += interval.numRuns;
+			averageInterval.waitTimeHistogram.add(interval.waitTimeHistogram);
+			averageInterval.rideTimeHistogram.add(interval.rideTimeHistogram);
 			
 			for (int i = 0; i < interval.elevatorCarDistribution.length; i++) {
 				averageInterval.elevatorCarDistribution[i] += interval.elevatorCarDistribution[i];
 			}
+			
+			for (int i = 0; i < interval.elevatorEnergyConsumption.length; i++) {
+				totalEnergyConsumption[i] += interval.elevatorEnergyConsumption[i].getConsumption();
+			}
 		}
 		
-		averageInterval.numGenerated = averageInterval.numGenerated / intervals.size();
-		averageInterval.numExists = averageInterval.numExists/ intervals.size();
-		averageInterval.numUp = averageInterval.numUp / intervals.size();
-		averageInterval.numDown = averageInterval.numDown / intervals.size();
-		averageInterval.numInterfloors = averageInterval.numInterfloors / intervals.size();
-		averageInterval.totalWaitTime = averageInterval.totalWaitTime / intervals.size();
-		averageInterval.totalSquaredWaitTime = averageInterval.totalSquaredWaitTime / intervals.size();
-		averageInterval.totalRideTime = averageInterval.totalRideTime / intervals.size();
-		averageInterval.numWaitsOver60s = averageInterval.numWaitsOver60s / intervals.size();
-			
-		for (int i = 0; i < averageInterval.elevatorCarDistribution.length; i++) {
-			averageInterval.elevatorCarDistribution[i] = averageInterval.elevatorCarDistribution[i] / intervals.size();
+		for (int i = 0; i < totalEnergyConsumption.length; i++) {
+			averageInterval.elevatorEnergyConsumption[i] = new EnergyConsumption(totalEnergyConsumption[i]);
 		}
 		
 		return averageInterval;
@@ -356,6 +429,88 @@ public class StatsInterval {
 		return averageHourStats;
 	}
 	
+	/**
+	 * Writes the interval to the given stream. The energy consumption is written as it is now.
+	 * @param stream The stream
+	 */
+	void write(DataOutputStream stream) throws IOException {
+		stream.writeDouble(this.startTime);
+		stream.writeInt(this.num);
+		stream.writeInt(this.numRuns);
+		stream.writeLong(this.numGenerated);
+		stream.writeLong(this.numExists);
+		stream.writeLong(this.numUp);
+		stream.writeLong(this.numDown);
+		stream.writeLong(this.numInterfloors);
+		stream.writeDouble(this.totalWaitTime);
+		stream.writeDouble(this.totalSquaredWaitTime);
+		stream.writeDouble(this.totalRideTime);
+		stream.writeLong(this.numWaitsOver60s);
+		stream.writeDouble(this.longestWaitTime);
+		
+		stream.writeInt(this.elevatorCarDistribution.length);
+		for (int i = 0; i < this.elevatorCarDistribution.length; i++) {
+			stream.writeInt(this.elevatorCarDistribution[i]);
+			stream.writeDouble(this.elevatorEnergyConsumption[i].getConsumption());
+		}
+		
+		this.waitTimeHistogram.write(stream);
+		this.rideTimeHistogram.write(stream);
+	}
+	
+	/**
+	 * Reads an interval written by {@link #write} from the given stream
+	 * @param stream The stream
+	 */
+	static StatsInterval read(DataInputStream stream) throws IOException {
+		double startTime = stream.readDouble();
+		int num = stream.readInt();
+		int numRuns = stream.readInt();
+		long[] counters = new long[5];
+		for (int i = 0; i < counters.length; i++) {
+			counters[i] = stream.readLong();
+		}
+		
+		double totalWaitTime = stream.readDouble();
+		double totalSquaredWaitTime = stream.readDouble();
+		double totalRideTime = stream.readDouble();
+		long numWaitsOver60s = stream.readLong();
+		double longestWaitTime = stream.readDouble();
+		
+		int numElevators = stream.readInt();
+		if (numElevators < 0) {
+			throw new IOException("Invalid number of elevator cars.");
+		}
+		
+		StatsInterval interval;
+		if (num != -1) {
+			interval = new StatsInterval(null, num, numElevators);
+		} else {
+			interval = new StatsInterval(null, startTime, numElevators);
+		}
+		
+		interval.numRuns = numRuns;
+		interval.numGenerated = counters[0];
+		interval.numExists = counters[1];
+		interval.numUp = counters[2];
+		interval.numDown = counters[3];
+		interval.numInterfloors = counters[4];
+		interval.totalWaitTime = totalWaitTime;
+		interval.totalSquaredWaitTime = totalSquaredWaitTime;
+		interval.totalRideTime = totalRideTime;
+		interval.numWaitsOver60s = numWaitsOver60s;
+		interval.longestWaitTime = longestWaitTime;
+		
+		for (int i = 0; i < numElevators; i++) {
+			interval.elevatorCarDistribution[i] = stream.readInt();
+			interval.elevatorEnergyConsumption[i] = new EnergyConsumption(stream.readDouble());
+		}
+		
+		interval.waitTimeHistogram.add(Histogram.read(stream));
+		interval.rideTimeHistogram.add(Histogram.read(stream));
+		return interval;
+	}
+	
 	/**
 	 * Exports the given statistics
 	 * @param fileName The name of the file to export to
@@ -389,27 +544,43 @@ public class StatsInterval {
 			for (int i = 0; i< intervals.get(0).elevatorEnergyConsumption.length; i++) {
 				writer.write("Energy consumption elevator " + i + ";");
 			}
+			
+			for (double percentile : EXPORTED_PERCENTILES) {
+				writer.write("Wait time p" + (int)percentile + ";");
+			}
+			
+			for (double percentile : EXPORTED_PERCENTILES) {
+				writer.write("Ride time p" + (int)percentile + ";");
+			}
 
 			writer.write("\n");
 			
 			for (StatsInterval interval : intervals) {
 				writer.write((int)(interval.getStartTime() / intervalLengthSec) + ";");
-				writer.write(interval.getNumGenerated() + ";");
-				writer.write(interval.getNumExists() + ";");
+				writer.write(interval.perRun(interval.getNumGenerated()) + ";");
+				writer.write(interval.perRun(interval.getNumExists()) + ";");
 				writer.write(interval.averageWaitTime() + ";");
 				writer.write(interval.averageSquaredWaitTime() + ";");
 				writer.write(interval.averageRideTime() + ";");
 				writer.write(interval.percentageOver60s() + ";");
-				writer.write(interval.getNumUp() + ";");
-				writer.write(interval.getNumDown() + ";");
-				writer.write(interval.getNumInterfloors() + ";");
+				writer.write(interval.perRun(interval.getNumUp()) + ";");
+				writer.write(interval.perRun(interval.getNumDown()) + ";");
+				writer.write(interval.perRun(interval.getNumInterfloors()) + ";");
 				
 				for (int served : interval.elevatorCarDistribution) {
-					writer.write(served + ";");
+					writer.write(interval.perRun(served) + ";");
 				}
 
 				for (EnergyConsumption consumption : interval.elevatorEnergyConsumption) {
-					writer.write(consumption.getConsumption() + ";");
+					writer.write(interval.perRun(consumption.getConsumption()) + ";");
+				}
+				
+				for (double percentile : EXPORTED_PERCENTILES) {
+					writer.write(interval.waitTimeHistogram.getValueAtPercentile(percentile) + ";");
+				}
+				
+				for (double percentile : EXPORTED_PERCENTILES) {
+					writer.write(interval.rideTimeHistogram.getValueAtPercentile(percentile) + ";");
 				}
 				
 				writer.write("\n");
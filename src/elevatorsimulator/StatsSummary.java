@@ -0,0 +1,213 @@
+package elevatorsimulator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Summarizes metrics of the stats intervals of several runs by their mean, standard deviation and 95% confidence interval.
+ * Summaries of different sets of runs, for example computed in different threads, can be merged.
+ */
+public class StatsSummary {
+	/**
+	 * The metrics of a stats interval
+	 */
+	public static enum Metric {
+		NUM_GENERATED("Number generated passengers", interval -> interval.perRun(interval.getNumGenerated())),
+		NUM_SERVED("Number served passengers", interval -> interval.perRun(interval.getNumExists())),
+		AVERAGE_WAIT_TIME("Average wait time", interval -> interval.averageWaitTime()),
+		AVERAGE_SQUARED_WAIT_TIME("Average squared wait time", interval -> interval.averageSquaredWaitTime()),
+		AVERAGE_RIDE_TIME("Average ride time", interval -> interval.averageRideTime()),
+		WAITS_OVER_60S("Wait times over 60 sec", interval -> interval.percentageOver60s()),
+		LONGEST_WAIT_TIME("Longest wait time", interval -> interval.getLongestWaitTime()),
+		WAIT_TIME_P50("Wait time p50", interval -> interval.getWaitTimeHistogram().getValueAtPercentile(50)),
+		WAIT_TIME_P90("Wait time p90", interval -> interval.getWaitTimeHistogram().getValueAtPercentile(90)),
+		WAIT_TIME_P99("Wait time p99", interval -> interval.getWaitTimeHistogram().getValueAtPercentile(99)),
+		RIDE_TIME_P50("Ride time p50", interval -> interval.getRideTimeHistogram().getValueAtPercentile(50)),
+		RIDE_TIME_P90("Ride time p90", interval -> interval.getRideTimeHistogram().getValueAtPercentile(90)),
+		RIDE_TIME_P99("Ride time p99", interval -> interval.getRideTimeHistogram().getValueAtPercentile(99)),
+		NUM_UP("Number of up travels", interval -> interval.perRun(interval.getNumUp())),
+		NUM_DOWN("Number of down travels", interval -> interval.perRun(interval.getNumDown())),
+		NUM_INTERFLOORS("Number of interfloor travels", interval -> interval.perRun(interval.getNumInterfloors())),
+		ENERGY_CONSUMPTION("Energy consumption", interval -> interval.perRun(interval.totalEnergyConsumption()));
+		
+		private final String name;
+		private final ToDoubleFunction<StatsInterval> value;
+		
+		private Metric(String name, ToDoubleFunction<StatsInterval> value) {
+			this.name = name;
+			this.value = value;
+		}
+		
+		/**
+		 * Returns the value of the metric for the given interval
+		 * @param interval The interval
+		 */
+		public double valueOf(StatsInterval interval) {
+			return this.value.applyAsDouble(interval);
+		}
+		
+		@Override
+		public String toString() {
+			return this.name;
+		}
+	}
+	
+	private final List<Metric> metrics;
+	private final RunningStatistics[] statistics;
+	private long numRuns;
+	
+	/**
+	 * Creates a new summary of the given metrics
+	 * @param metrics The metrics
+	 */
+	public StatsSummary(List<Metric> metrics) {
+		this.metrics = new ArrayList<Metric>(metrics);
+		this.statistics = new RunningStatistics[this.metrics.size()];
+		
+		for (int i = 0; i < this.statistics.length; i++) {
+			this.statistics[i] = new RunningStatistics();
+		}
+	}
+	
+	/**
+	 * Creates a new summary of all the metrics
+	 */
+	public StatsSummary() {
+		this(Arrays.asList(Metric.values()));
+	}
+	
+	/**
+	 * Returns the metrics
+	 */
+	public List<Metric> getMetrics() {
+		return this.metrics;
+	}
+	
+	/**
+	 * Adds the given interval of a run
+	 * @param interval The interval
+	 */
+	public void add(StatsInterval interval) {
+		this.numRuns++;
+		
+		for (int i = 0; i < this.statistics.length; i++) {
+			double value = this.metrics.get(i).valueOf(interval);
+			
+			//Metrics of an interval without any served passengers are undefined
+			if (!Double.isNaN(value)) {
+				this.statistics[i].add(value);
+			}
+		}
+	}
+	
+	/**
+	 * Adds the runs of the given summary to the current
+	 * @param other The other summary
+	 */
+	public void merge(StatsSummary other) {
+		if (!this.metrics.equals(other.metrics)) {
+			throw new IllegalArgumentException("The summaries must have the same metrics.");
+		}
+		
+		for (int i = 0; i < this.statistics.length; i++) {
+			this.statistics[i].merge(other.statistics[i]);
+		}
+		
+		this.numRuns += other.numRuns;
+	}
+	
+	/**
+	 * Returns the number of runs
+	 */
+	public long getNumRuns() {
+		return this.numRuns;
+	}
+	
+	/**
+	 * Returns the statistics of the given metric
+	 * @param metric The metric
+	 */
+	public RunningStatistics getStatistics(Metric metric) {
+		int index = this.metrics.indexOf(metric);
+		
+		if (index == -1) {
+			throw new IllegalArgumentException("The metric " + metric + " is not summarized.");
+		}
+		
+		return this.statistics[index];
+	}
+	
+	/**
+	 * Summarizes the intervals with the same index in each run
+	 * @param runIntervals The intervals of each run
+	 * @param metrics The metrics
+	 */
+	public static List<StatsSummary> summarizeHours(List<List<StatsInterval>> runIntervals, List<Metric> metrics) {
+		List<StatsSummary> summaries = new ArrayList<StatsSummary>();
+		int minNumIntervals = Integer.MAX_VALUE;
+		for (List<StatsInterval> intervals : runIntervals) {
+			minNumIntervals = Math.min(minNumIntervals, intervals.size());
+		}
+		
+		for (int i = 0; i < minNumIntervals; i++) {
+			StatsSummary summary = new StatsSummary(metrics);
+			
+			for (List<StatsInterval> intervals : runIntervals) {
+				summary.add(intervals.get(i));
+			}
+			
+			summaries.add(summary);
+		}
+		
+		return summaries;
+	}
+	
+	/**
+	 * Exports the given summaries, one line per summary
+	 * @param fileName The name of the file to export to
+	 * @param summaries The summaries
+	 */
+	public static void exportSummaries(String fileName, List<StatsSummary> summaries) {
+		try {
+			File dataDir = new File("data");
+			if (!dataDir.exists()) {
+				dataDir.mkdir();
+			}
+			
+			BufferedWriter writer = new BufferedWriter(new FileWriter("data/" + fileName + ".csv"));
+			writer.write("Hour;");
+			writer.write("Number of runs;");
+			
+			for (Metric metric : summaries.get(0).metrics) {
+				writer.write(metric + " mean;");
+				writer.write(metric + " standard deviation;");
+				writer.write(metric + " 95% confidence interval;");
+			}
+			
+			writer.write("\n");
+			
+			for (int hour = 0; hour < summaries.size(); hour++) {
+				StatsSummary summary = summaries.get(hour);
+				writer.write(hour + ";");
+				writer.write(summary.numRuns + ";");
+				
+				for (RunningStatistics statistics : summary.statistics) {
+					writer.write(statistics.getMean() + ";");
+					writer.write(statistics.getStandardDeviation() + ";");
+					writer.write(statistics.getConfidenceHalfWidth95() + ";");
+				}
+				
+				writer.write("\n");
+			}
+			
+			writer.close();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
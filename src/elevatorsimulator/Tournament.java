@@ -0,0 +1,211 @@
+package elevatorsimulator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Compares schedulers on exactly the same passengers. The arrivals of each seed are generated once,
+ * and then replayed by one simulator per scheduler. The hour stats of the schedulers are exported side by side.
+ */
+public class Tournament {
+	/**
+	 * The metrics that are compared by default
+	 */
+	public static final List<StatsSummary.Metric> DEFAULT_METRICS = Collections.unmodifiableList(Arrays.asList(
+		StatsSummary.Metric.NUM_SERVED,
+		StatsSummary.Metric.AVERAGE_WAIT_TIME,
+		StatsSummary.Metric.WAIT_TIME_P90,
+		StatsSummary.Metric.WAITS_OVER_60S,
+		StatsSummary.Metric.AVERAGE_RIDE_TIME,
+		StatsSummary.Metric.ENERGY_CONSUMPTION));
+	
+	private final Scenario scenario;
+	private final SimulatorSettings settings;
+	private final List<SchedulerCreator> schedulerCreators;
+	private final List<StatsSummary.Metric> metrics;
+	
+	/**
+	 * The result of a single run
+	 */
+	private static class RunResult {
+		public final String name;
+		public final List<StatsInterval> hourStats;
+		
+		public RunResult(String name, List<StatsInterval> hourStats) {
+			this.name = name;
+			this.hourStats = hourStats;
+		}
+	}
+	
+	/**
+	 * Creates a new tournament that compares the default metrics
+	 * @param scenario The scenario
+	 * @param settings The settings
+	 * @param schedulerCreators The schedulers
+	 */
+	public Tournament(Scenario scenario, SimulatorSettings settings, List<SchedulerCreator> schedulerCreators) {
+		this(scenario, settings, schedulerCreators, DEFAULT_METRICS);
+	}
+	
+	/**
+	 * Creates a new tournament
+	 * @param scenario The scenario
+	 * @param settings The settings
+	 * @param schedulerCreators The schedulers
+	 * @param metrics The metrics to compare
+	 */
+	public Tournament(Scenario scenario, SimulatorSettings settings, List<SchedulerCreator> schedulerCreators, List<StatsSummary.Metric> metrics) {
+		if (schedulerCreators.isEmpty()) {
+			throw new IllegalArgumentException("There must be at least one scheduler.");
+		}
+		
+		this.scenario = scenario;
+		this.settings = settings;
+		this.schedulerCreators = new ArrayList<SchedulerCreator>(schedulerCreators);
+		this.metrics = new ArrayList<StatsSummary.Metric>(metrics);
+	}
+	
+	/**
+	 * Runs the given scheduler with the given arrivals
+	 * @param schedulerCreator The scheduler
+	 * @param arrivalSchedule The arrivals
+	 * @param seed The seed
+	 */
+	private RunResult runSimulation(SchedulerCreator schedulerCreator, ArrivalSchedule arrivalSchedule, long seed) {
+		Simulator simulator = new Simulator(this.scenario, this.settings, schedulerCreator, arrivalSchedule, seed);
+		simulator.setExportStats(false);
+		simulator.setLog(SimulatorLog.NONE);
+		simulator.run();
+		
+		//The stats of the simulator refer to its building, so the hour stats of the run are copied by averaging them alone
+		List<StatsInterval> hourStats = StatsInterval.averageHours(Collections.singletonList(simulator.getStats().getStatsIntervals()));
+		return new RunResult(simulator.getControlSystem().getSchedulerName(), hourStats);
+	}
+	
+	/**
+	 * Runs every scheduler with the arrivals of each of the given seeds, and exports the hour stats of the
+	 * schedulers averaged over the seeds
+	 * @param seeds The seeds
+	 * @param executor The executor or null to run on the calling thread
+	 * @param fileName The name of the file to export to
+	 */
+	public void run(long[] seeds, ExecutorService executor, String fileName) {
+		if (seeds.length == 0) {
+			throw new IllegalArgumentException("There must be at least one seed.");
+		}
+		
+		//The arrivals are generated once per seed, and each simulator replays its own copy
+		List<List<Future<RunResult>>> schedulerRuns = new ArrayList<List<Future<RunResult>>>();
+		for (int i = 0; i < this.schedulerCreators.size(); i++) {
+			schedulerRuns.add(new ArrayList<Future<RunResult>>());
+		}
+		
+		for (long seed : seeds) {
+			ArrivalSchedule arrivalSchedule = ArrivalSchedule.generate(this.scenario, this.settings, seed);
+			
+			for (int i = 0; i < this.schedulerCreators.size(); i++) {
+				SchedulerCreator schedulerCreator = this.schedulerCreators.get(i);
+				ArrivalSchedule arrivals = arrivalSchedule.copy();
+				schedulerRuns.get(i).add(SimulatorRunner.submit(executor, () -> this.runSimulation(schedulerCreator, arrivals, seed)));
+			}
+		}
+		
+		List<String> schedulerNames = new ArrayList<String>();
+		List<List<StatsInterval>> schedulerHourStats = new ArrayList<List<StatsInterval>>();
+		
+		for (List<Future<RunResult>> runs : schedulerRuns) {
+			List<List<StatsInterval>> hourStats = new ArrayList<List<StatsInterval>>();
+			String name = "";
+			
+			for (Future<RunResult> run : runs) {
+				RunResult result = SimulatorRunner.getResult(run);
+				hourStats.add(result.hourStats);
+				
+				if (name == "") {
+					name = result.name;
+				}
+			}
+			
+			schedulerNames.add(name);
+			schedulerHourStats.add(StatsInterval.averageHours(hourStats));
+		}
+		
+		this.exportComparison(fileName, schedulerNames, schedulerHourStats);
+	}
+	
+	/**
+	 * Exports the hour stats of the schedulers side by side, one line per hour
+	 * @param fileName The name of the file to export to
+	 * @param schedulerNames The names of the schedulers
+	 * @param schedulerHourStats The hour stats of each scheduler
+	 */
+	private void exportComparison(String fileName, List<String> schedulerNames, List<List<StatsInterval>> schedulerHourStats) {
+		try {
+			File dataDir = new File("data");
+			if (!dataDir.exists()) {
+				dataDir.mkdir();
+			}
+			
+			BufferedWriter writer = new BufferedWriter(new FileWriter("data/" + fileName + ".csv"));
+			writer.write("Hour;");
+			
+			for (String name : schedulerNames) {
+				for (StatsSummary.Metric metric : this.metrics) {
+					writer.write(name + " " + metric + ";");
+				}
+			}
+			
+			writer.write("\n");
+			
+			int numHours = Integer.MAX_VALUE;
+			for (List<StatsInterval> hourStats : schedulerHourStats) {
+				numHours = Math.min(numHours, hourStats.size());
+			}
+			
+			for (int hour = 0; hour < numHours; hour++) {
+				writer.write(hour + ";");
+				
+				for (List<StatsInterval> hourStats : schedulerHourStats) {
+					for (StatsSummary.Metric metric : this.metrics) {
+						writer.write(metric.valueOf(hourStats.get(hour)) + ";");
+					}
+				}
+				
+				writer.write("\n");
+			}
+			
+			writer.close();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
+	public static void main(String[] args) {
+		Scenario scenario = Scenarios.createLargeBuilding(4);
+		SimulatorSettings settings = new SimulatorSettings(0.01, 24 * 60 * 60);
+		Tournament tournament = new Tournament(scenario, settings, SchedulerCreators.creators);
+		
+		Random seedGenerator = new Random(SimulatorRunner.DATA_RUN_SEED);
+		long[] seeds = new long[SimulatorRunner.NUM_DATA_RUNS];
+		for (int i = 0; i < seeds.length; i++) {
+			seeds[i] = seedGenerator.nextLong();
+		}
+		
+		ExecutorService executor = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		
+		try {
+			tournament.run(seeds, executor, scenario.getName() + "-Tournament");
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
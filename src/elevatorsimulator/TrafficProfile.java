@@ -119,11 +119,32 @@ public class TrafficProfile {
 		return this.intervalLengthInMin * 60 * SimulatorClock.NANOSECONDS_PER_SECOND;
 	}
 	
+	/**
+	 * Returns the number of intervals
+	 */
+	public int numIntervals() {
+		return this.arrivalRates.length;
+	}
+	
+	/**
+	 * Returns the index of the interval at the given time
+	 */
+	public int getIntervalIndex(long time) {
+		return (int)((time / this.length()) % this.arrivalRates.length);
+	}
+	
 	/**
 	 * Returns data for the interval at the given time
 	 */
 	public Interval getIntervalData(long time) {
-		int intervalIndex = (int)((time / this.length()) % this.arrivalRates.length);
+		return this.arrivalRates[this.getIntervalIndex(time)];
+	}
+	
+	/**
+	 * Returns data for the given interval
+	 * @param intervalIndex The index of the interval
+	 */
+	public Interval getInterval(int intervalIndex) {
 		return this.arrivalRates[intervalIndex];
 	}
 }
@@ -46,6 +46,11 @@ public class CollectiveControl implements SchedulingAlgorithm {
         }
     }
 
+    @Override
+    public boolean isChangeDriven() {
+        return true;
+    }
+
     @Override
     public void onIdle(Simulator simulator, Elevator elevator) {
 
@@ -140,11 +140,11 @@ public class HighZoning implements SchedulingAlgorithm {
         } else if (passenger.getDestinationFloor() > this.getZone(elevator).maxFloorNum) {
             renewal.add(new Passenger(passenger.getId(), passenger.getArrivalFloor(),
                     passenger.getDestinationFloor(), passenger.getCapacity(), simulator.getClock()));
-            passenger.setDestinationFloor(this.getZone(elevator).maxFloorNum);
+            elevator.redirectPassenger(passenger, this.getZone(elevator).maxFloorNum);
         } else {
             renewal.add(new Passenger(passenger.getId(), passenger.getArrivalFloor(),
                     passenger.getDestinationFloor(), passenger.getCapacity(), simulator.getClock()));
-            passenger.setDestinationFloor(this.getZone(elevator).minFloorNum);
+            elevator.redirectPassenger(passenger, this.getZone(elevator).minFloorNum);
         }
     }
 
@@ -154,7 +154,7 @@ public class HighZoning implements SchedulingAlgorithm {
         while(iterator.hasNext()) {
             Passenger renew = iterator.next();
             if(renew.getId() == passenger.getId()) {
-                simulator.getPre_madeList().addFirst(new Passenger(passenger.getId(), elevator.getFloor(),
+                simulator.getArrivalSchedule().inject(new Passenger(passenger.getId(), elevator.getFloor(),
                         renew.getDestinationFloor(), passenger.getCapacity(),
                         simulator.getClock().timeNow() + 100));
                 iterator.remove();
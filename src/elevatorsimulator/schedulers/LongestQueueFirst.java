@@ -90,7 +90,7 @@ public class LongestQueueFirst implements SchedulingAlgorithm {
 				if (closestElevator != null) {
 					switch (type) {
 					case DISPATCH:
-						simulator.elevatorDebugLog(closestElevator.getId(), "Movings towards floor " + passenger.getArrivalFloor() + ".");
+						simulator.elevatorDebugLog(closestElevator.getId(), () -> "Movings towards floor " + passenger.getArrivalFloor() + ".");
 						closestElevator.moveTowards(simulator, passenger.getArrivalFloor());
 						break;
 					case STOP:
@@ -104,6 +104,11 @@ public class LongestQueueFirst implements SchedulingAlgorithm {
 		}
 	}
 
+	@Override
+	public boolean isChangeDriven() {
+		return true;
+	}
+	
 	@Override
 	public void onIdle(Simulator simulator, Elevator elevator) {
 
@@ -74,6 +74,11 @@ public class ReinforcementLearning implements SchedulingAlgorithm {
 		this.schedulers.get(this.activeScheduler).update(simulator);
 	}
 
+	@Override
+	public boolean hasPendingWork(Simulator simulator) {
+		return this.schedulers.get(this.activeScheduler).hasPendingWork(simulator);
+	}
+
 	@Override
 	public void onIdle(Simulator simulator, Elevator elevator) {
 		this.schedulers.get(this.activeScheduler).onIdle(simulator, elevator);
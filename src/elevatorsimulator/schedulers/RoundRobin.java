@@ -82,6 +82,17 @@ public class RoundRobin implements SchedulingAlgorithm {
 		}
 	}
 
+	@Override
+	public boolean hasPendingWork(Simulator simulator) {
+		for (ElevatorData elevator : this.elevators) {
+			if (elevator.elevator.getState() == State.IDLE && !elevator.queue.isEmpty()) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+
 	@Override
 	public void onIdle(Simulator simulator, Elevator elevator) {
 		if (this.isUpPeak && this.elevators.get(elevator.getId()).queue.isEmpty()) {
@@ -1,12 +1,13 @@
 package elevatorsimulator.schedulers;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
 
 import elevatorsimulator.Building;
@@ -26,6 +27,14 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 	private List<ElevatorData> elevators = new ArrayList<ElevatorData>();
 	private Map<Elevator, ElevatorData> elevatorToData = new HashMap<>();
 	
+	//The current call of each passenger and the elevator car that owns it
+	private final Map<Passenger, CallTuple> callIndex = new IdentityHashMap<>();
+	
+	//Reused floor sets for the cost evaluation
+	private final BitSet carCallsBefore = new BitSet();
+	private final BitSet hallCallsBefore = new BitSet();
+	private final BitSet carCallFloors = new BitSet();
+	
 	/**
 	 * The passage type
 	 * @author Anton Jansson and Kristoffer Uggla Lingvall
@@ -56,40 +65,6 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 			this.passenger = passenger;
 		}
 
-		@Override
-		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result	+ ((passenger == null) ? 0 : passenger.hashCode());
-			result = prime * result + ((type == null) ? 0 : type.hashCode());
-			return result;
-		}
-
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj) {
-				return true;
-			}
-			if (obj == null) {
-				return false;
-			}
-			if (!(obj instanceof PassengerCall)) {
-				return false;
-			}
-			PassengerCall other = (PassengerCall) obj;
-			if (passenger == null) {
-				if (other.passenger != null) {
-					return false;
-				}
-			} else if (!passenger.equals(other.passenger)) {
-				return false;
-			}
-			if (type != other.type) {
-				return false;
-			}
-			return true;
-		}	
-		
 		@Override
 		public String toString() {
 			return "{ type: " + this.type + ", travel: " + this.passenger.getArrivalFloor() + "->" + this.passenger.getDestinationFloor() + " }";
@@ -101,7 +76,7 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 	 */
 	private static class ElevatorData {
 		public final Elevator elevator;
-		public final Queue<PassengerCall> hallCalls = new LinkedList<PassengerCall>();
+		public final Set<PassengerCall> hallCalls = new LinkedHashSet<PassengerCall>();
 		public final Set<PassengerCall> carCalls = new HashSet<PassengerCall>();
 		
 		public ElevatorData(Elevator elevator) {
@@ -137,54 +112,18 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 	}
 
 	/**
-	 * Finds the call for the given passenger
-	 * @param passenger The passenger
-	 * @return The call or null
-	 */
-	private CallTuple findCall(Passenger passenger) {
-		for (ElevatorData elevatorData : this.elevators) {
-			for (PassengerCall hallCall : elevatorData.hallCalls) {
-				if (hallCall.passenger == passenger) {
-					return new CallTuple(elevatorData, hallCall);
-				}
-			}
-		}
-		
-		System.out.println(passenger);
-		return null;
-	}
-	
-	/**
-	 * Finds the hall call for the given passenger
-	 * @param elevatorData The elevator data
+	 * Returns the call for the given passenger
 	 * @param passenger The passenger
-	 * @return The hall call or null
+	 * @throws IllegalStateException If the passenger has no call
 	 */
-	@SuppressWarnings("unused")
-	private PassengerCall findHallCall(ElevatorData elevatorData, Passenger passenger) {
-		for (PassengerCall hallCall : elevatorData.hallCalls) {
-			if (hallCall.passenger == passenger) {
-				return hallCall;
-			}
-		}
+	private CallTuple getCall(Passenger passenger) {
+		CallTuple callData = this.callIndex.get(passenger);
 		
-		return null;
-	}
-	
-	/**
-	 * Finds the car call for the given passenger
-	 * @param elevatorData The elevator data
-	 * @param passenger The passenger
-	 * @return The car call or null
-	 */
-	private PassengerCall findCarCall(ElevatorData elevatorData, Passenger passenger) {
-		for (PassengerCall carCall : elevatorData.carCalls) {
-			if (carCall.passenger == passenger) {
-				return carCall;
-			}
+		if (callData == null) {
+			throw new IllegalStateException("No call for passenger " + passenger + ".");
 		}
 		
-		return null;
+		return callData;
 	}
 	
 	/**
@@ -236,95 +175,40 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 		}
 	}
 	
-	/**
-	 * Finds the car calls between the given floors
-	 * @param simulator The simulator
-	 * @param minFloor The min floor
-	 * @param maxFloor The max floor
-	 */
-	private Set<Passenger> getCarCalls(Simulator simulator, int minFloor, int maxFloor) {
-		Set<Passenger> carCalls = new HashSet<>();
-		
-		for (Elevator elevator : simulator.getBuilding().getElevatorCars()) {
-			for (Passenger passenger : elevator.getPassengers()) {
-				if (passenger.getDestinationFloor() > minFloor && passenger.getDestinationFloor() < maxFloor) {
-					carCalls.add(passenger);
-				}
-			}
-		}	
-		
-		return carCalls;
-	}
-	
-	/**
-	 * Finds the hall calls between the given floors
-	 * @param simulator The simulator
-	 * @param minFloor The min floor
-	 * @param maxFloor The max floor
-	 */
-	private Set<Passenger> getHallCalls(Simulator simulator, int minFloor, int maxFloor) {
-		Set<Passenger> hallCalls = new HashSet<>();
-		
-		for (ElevatorData elevatorData : this.elevators) {
-			for (PassengerCall hallCall : elevatorData.hallCalls) {
-				Passenger passenger = hallCall.passenger;
-				if (passenger.getDestinationFloor() > minFloor && passenger.getDestinationFloor() < maxFloor) {
-					hallCalls.add(passenger);
-				}
-			}
-		}
-		
-		return hallCalls;
-	}
-	
-	private static class Tuple {
-		public final int first;
-		public final int second;
-		
-		public Tuple(int first, int second) {
-			this.first = first;
-			this.second = second;
-		}
-	}
-	
 	private int calculateNkPass(Simulator simulator, Passenger passengerToHandle) {
-		int nkPass = 0;
-		
-		for (Passenger passenger : simulator.getControlSystem().getHallQueue()) {
-			if (passenger.getArrivalFloor() == passengerToHandle.getArrivalFloor()
-				&& passenger.getDirection() == passengerToHandle.getDirection()) {
-				nkPass++;
-			}
-		}
-		
-		return nkPass;
+		return simulator.getControlSystem().getNumWaiting(
+			passengerToHandle.getArrivalFloor(),
+			passengerToHandle.getDirection());
 	}
 		
-	private Tuple calculateFi(Building building, int floor, Direction dir) {
+	private int calculateFik(Building building, int floor, Direction dir) {
 		int fik = 0;
-		int fiActual = 0;
 		
 		if (dir == Direction.UP) {
 			fik = building.numFloors() - floor;
-			fiActual = building.numFloors();
 		} else if (dir == Direction.DOWN) {
 			fik = floor;
-			fiActual = 0;
 		} else {
 			fik = Math.max(building.numFloors() - floor, floor);
-			
-			if (fik == floor) {
-				fiActual = 0;
-			} else {
-				fiActual = building.numFloors() - 1;
-			}
 		}
 		
 		if (fik == 0) {
 			fik = building.numFloors();
 		}
 		
-		return new Tuple(fik, fiActual);
+		return fik;
+	}
+	
+	private int calculateFiActual(Building building, int floor, Direction dir) {
+		if (dir == Direction.UP) {
+			return building.numFloors();
+		} else if (dir == Direction.DOWN) {
+			return 0;
+		} else if (Math.max(building.numFloors() - floor, floor) == floor) {
+			return 0;
+		} else {
+			return building.numFloors() - 1;
+		}
 	}
 		
 	private double calculatePik(int nkPass, double fik) {
@@ -342,13 +226,10 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 	private double calculateLiNet(int fik, double Pik) {
 		double liNet = 0.0;
 		if (fik > 1) {
+			//Pik^l, multiplied in the same order as a product over l factors
+			double product = Pik;
 			for (int l = 2; l <= fik; l++) {
-				double product = 1;
-				
-				for (int j = fik - l + 1; j <= fik; j++) {
-					product *= Pik;
-				}
-				
+				product *= Pik;
 				liNet += product;
 			}
 		}
@@ -360,16 +241,6 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 		return fiActual - liNet;
 	}
 	
-	private int calculateSkjManadatory(Simulator simulator, int k, int j) {
-		Set<Passenger> Ckj = this.getCarCalls(simulator, k, j);
-		Set<Passenger> Hkj = this.getHallCalls(simulator, k, j);
-		Set<Passenger> CHkj = new HashSet<>();
-		CHkj.addAll(Ckj);
-		CHkj.addAll(Hkj);
-		
-		return Ckj.size() + Hkj.size() - CHkj.size();
-	}
-		
 	private double calculateSkjExtra(double sik, double skjMandatory, double fik, int k, int j) {
 		return sik * ((double)Math.abs(j - k) - 1.0 - skjMandatory) / (double)fik;
 	}
@@ -378,7 +249,7 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 		return Pik + sik + liNet + fiFarthest + skjMandatory + skjExtra;
 	}
 		
-	private double calculateTiAttending(Simulator simulator, int elevatorFloor, Direction elevatorDir, Passenger passengerToHandle, PassageType callType, Set<Integer> CiBefore, Set<Integer> HiBefore) {
+	private double calculateTiAttending(Simulator simulator, int elevatorFloor, Direction elevatorDir, Passenger passengerToHandle, PassageType callType, BitSet CiBefore, BitSet HiBefore) {
 		double tikNonstop = 
 				Math.abs(passengerToHandle.getDestinationFloor() - elevatorFloor)
 				* ElevatorConfiguration.defaultConfiguration().getFloorTime();
@@ -387,19 +258,19 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 		int k = passengerToHandle.getArrivalFloor();
 		int j = passengerToHandle.getDestinationFloor();
 		int nkPass = this.calculateNkPass(simulator, passengerToHandle);
-		Tuple fi = this.calculateFi(simulator.getBuilding(), elevatorFloor, elevatorDir);
-		int fik = fi.first;
-		int fiActual = fi.second;
+		int fik = this.calculateFik(simulator.getBuilding(), elevatorFloor, elevatorDir);
+		int fiActual = this.calculateFiActual(simulator.getBuilding(), elevatorFloor, elevatorDir);
 		double Pik = this.calculatePik(nkPass, fik);
 		double sik = this.calculateSik(fik, Pik);
-		double skjMandatory = this.calculateSkjManadatory(simulator, k, j);
+		//A hall call is moved to the car calls in the same callback as the passenger boards,
+		//so no passenger has both and there are no mandatory stops between the floors
+		double skjMandatory = 0;
 		double skjExtra = this.calculateSkjExtra(sik, skjMandatory, fik, k, j);
 		double liNet = this.calculateLiNet(fik, Pik);
 		double fiFarthest = this.calculateFiFarthest(fiActual, liNet);
 		
-		for (int floor : HiBefore) {
-			double skjMandatoryFloor = this.calculateSkjManadatory(simulator, floor, passengerToHandle.getArrivalFloor());
-			double skjExtraFloor = this.calculateSkjExtra(sik, skjMandatoryFloor, fik, floor, passengerToHandle.getArrivalFloor());
+		for (int floor = HiBefore.nextSetBit(0); floor >= 0; floor = HiBefore.nextSetBit(floor + 1)) {
+			double skjExtraFloor = this.calculateSkjExtra(sik, skjMandatory, fik, floor, passengerToHandle.getArrivalFloor());
 			
 			if (skjExtraFloor < 0) {
 				skjExtraFloor *= 1;
@@ -410,11 +281,15 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 				
 		double ts = this.calculateStopTime(Pik, sik, liNet, fiFarthest, skjMandatory, skjExtra);
 		
-		Set<Integer> CHiBefore = new HashSet<>();
-		CHiBefore.addAll(CiBefore);
-		CHiBefore.addAll(HiBefore);
+		//The number of floors with both car and hall calls
+		int numCHiBefore = 0;
+		for (int floor = HiBefore.nextSetBit(0); floor >= 0; floor = HiBefore.nextSetBit(floor + 1)) {
+			if (CiBefore.get(floor)) {
+				numCHiBefore++;
+			}
+		}
 		
-		double tiAttending = tikNonstop + (CiBefore.size() + HiBefore.size() - CHiBefore.size() + sikExtraSum) * ts;
+		double tiAttending = tikNonstop + (numCHiBefore + sikExtraSum) * ts;
 		
 		if (tiAttending < 0) {
 			System.out.println(
@@ -430,7 +305,7 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 		return tiAttending;		
 	}
 	
-	private double calculateTiAttending(Simulator simulator, Elevator elevator, Passenger passengerToHandle, PassageType callType, Set<Integer> CiBefore, Set<Integer> HiBefore) {
+	private double calculateTiAttending(Simulator simulator, Elevator elevator, Passenger passengerToHandle, PassageType callType, BitSet CiBefore, BitSet HiBefore) {
 		Direction elevatorDir = elevator.getDirection();
 		
 		if (elevatorDir == Direction.NONE) {
@@ -446,7 +321,8 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 		switch (callType) {
 		case P1:
 			{
-				Set<Integer> CiBefore = new HashSet<>();		
+				BitSet CiBefore = this.carCallsBefore;
+				CiBefore.clear();
 				int callDelta = Math.abs(elevatorData.elevator.getFloor() - passengerToHandle.getDestinationFloor());
 				
 				for (PassengerCall carCall : elevatorData.carCalls) {
@@ -454,20 +330,21 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 						int delta = Math.abs(elevatorData.elevator.getFloor() - carCall.passenger.getDestinationFloor());
 						
 						if (delta < callDelta) {					
-							CiBefore.add(carCall.passenger.getDestinationFloor());
+							CiBefore.set(carCall.passenger.getDestinationFloor());
 						}
 					}
 				}
 							
 				callDelta = Math.abs(elevatorData.elevator.getFloor() - passengerToHandle.getArrivalFloor());
-				Set<Integer> HiBefore = new HashSet<>();
+				BitSet HiBefore = this.hallCallsBefore;
+				HiBefore.clear();
 				
 				for (PassengerCall hallCall : elevatorData.hallCalls) {
 					if (hallCall.type == PassageType.P1) {
 						int delta = Math.abs(elevatorData.elevator.getFloor() - hallCall.passenger.getArrivalFloor());
 						
 						if (delta < callDelta) {	
-							HiBefore.add(hallCall.passenger.getArrivalFloor());
+							HiBefore.set(hallCall.passenger.getArrivalFloor());
 						}
 					}
 				}
@@ -524,7 +401,8 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 						}
 					}
 					
-					Set<Integer> CiBefore = new HashSet<>();		
+					BitSet CiBefore = this.carCallsBefore;
+					CiBefore.clear();
 					
 					int callDelta = Math.abs(reversalFloor - passengerToHandle.getDestinationFloor());
 					
@@ -533,20 +411,21 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 							int delta = Math.abs(reversalFloor - carCall.passenger.getDestinationFloor());
 							
 							if (delta < callDelta) {					
-								CiBefore.add(carCall.passenger.getDestinationFloor());
+								CiBefore.set(carCall.passenger.getDestinationFloor());
 							}
 						}
 					}
 								
 					callDelta = Math.abs(reversalFloor - passengerToHandle.getArrivalFloor());
-					Set<Integer> HiBefore = new HashSet<>();
+					BitSet HiBefore = this.hallCallsBefore;
+					HiBefore.clear();
 					
 					for (PassengerCall hallCall : elevatorData.hallCalls) {
 						if (hallCall.type == PassageType.P2) {
 							int delta = Math.abs(reversalFloor - hallCall.passenger.getArrivalFloor());
 							
 							if (delta < callDelta) {	
-								HiBefore.add(hallCall.passenger.getArrivalFloor());
+								HiBefore.set(hallCall.passenger.getArrivalFloor());
 							}
 						}
 					}
@@ -564,17 +443,19 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 					//The second case
 					
 					//Part 1
-					Set<Integer> CiBefore = new HashSet<>();		
+					BitSet CiBefore = this.carCallsBefore;
+					CiBefore.clear();
 					for (PassengerCall carCall : elevatorData.carCalls) {
 						if (passengerToHandle.getArrivalFloor() != carCall.passenger.getDestinationFloor()) {
-							CiBefore.add(carCall.passenger.getDestinationFloor());
+							CiBefore.set(carCall.passenger.getDestinationFloor());
 						}
 					}
 					
-					Set<Integer> HiBefore = new HashSet<>();				
+					BitSet HiBefore = this.hallCallsBefore;
+					HiBefore.clear();
 					for (PassengerCall hallCall : elevatorData.hallCalls) {
 						if (hallCall.type == PassageType.P1 && passengerToHandle.getArrivalFloor() != hallCall.passenger.getArrivalFloor()) {
-							HiBefore.add(hallCall.passenger.getArrivalFloor());
+							HiBefore.set(hallCall.passenger.getArrivalFloor());
 						}
 					}
 					
@@ -588,45 +469,7 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 					
 					//Part 2				
 					//Calculate the reversal floor
-					int reversalFloor = -1;
-					
-					for (PassengerCall carCall : elevatorData.carCalls) {
-						if (carCall.type == PassageType.P1) {
-							if (reversalFloor == -1) {
-								reversalFloor = carCall.passenger.getDestinationFloor();
-								continue;
-							}
-							
-							if (elevatorDir == Direction.UP) {
-								if (carCall.passenger.getDestinationFloor() > reversalFloor) {
-									reversalFloor = carCall.passenger.getDestinationFloor();
-								}
-							} else if (elevatorDir == Direction.DOWN) {
-								if (carCall.passenger.getDestinationFloor() < reversalFloor) {
-									reversalFloor = carCall.passenger.getDestinationFloor();
-								}
-							}
-						}
-					}
-					
-					for (PassengerCall hallCall : elevatorData.hallCalls) {
-						if (hallCall.type == PassageType.P2) {
-							if (reversalFloor == -1) {
-								reversalFloor = hallCall.passenger.getArrivalFloor();
-								continue;
-							}
-							
-							if (elevatorDir == Direction.UP) {
-								if (hallCall.passenger.getArrivalFloor() > reversalFloor) {
-									reversalFloor = hallCall.passenger.getArrivalFloor();
-								}
-							} else if (elevatorDir == Direction.DOWN) {
-								if (hallCall.passenger.getArrivalFloor() < reversalFloor) {
-									reversalFloor = hallCall.passenger.getArrivalFloor();
-								}
-							}
-						}
-					}
+					int reversalFloor = this.calculateFirstReversalFloor(elevatorData, elevatorDir);
 					
 					CiBefore.clear();
 					HiBefore.clear();
@@ -637,7 +480,7 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 							int delta = Math.abs(reversalFloor - hallCall.passenger.getArrivalFloor());
 							
 							if (delta < callDelta) {	
-								HiBefore.add(hallCall.passenger.getArrivalFloor());
+								HiBefore.set(hallCall.passenger.getArrivalFloor());
 							}
 						}
 					}
@@ -658,17 +501,19 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 			{
 				//The third case
 				//Part 1
-				Set<Integer> CiBefore = new HashSet<>();		
+				BitSet CiBefore = this.carCallsBefore;
+				CiBefore.clear();
 				for (PassengerCall carCall : elevatorData.carCalls) {
 					if (passengerToHandle.getArrivalFloor() != carCall.passenger.getDestinationFloor()) {
-						CiBefore.add(carCall.passenger.getDestinationFloor());
+						CiBefore.set(carCall.passenger.getDestinationFloor());
 					}
 				}
 				
-				Set<Integer> HiBefore = new HashSet<>();				
+				BitSet HiBefore = this.hallCallsBefore;
+				HiBefore.clear();
 				for (PassengerCall hallCall : elevatorData.hallCalls) {
 					if (hallCall.type == PassageType.P1 && passengerToHandle.getArrivalFloor() != hallCall.passenger.getArrivalFloor()) {
-						HiBefore.add(hallCall.passenger.getArrivalFloor());
+						HiBefore.set(hallCall.passenger.getArrivalFloor());
 					}
 				}
 				
@@ -678,45 +523,7 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 				
 				//Part 2
 				//Calculate the reversal floor
-				int reversalFloor = -1;
-				
-				for (PassengerCall carCall : elevatorData.carCalls) {
-					if (carCall.type == PassageType.P1) {
-						if (reversalFloor == -1) {
-							reversalFloor = carCall.passenger.getDestinationFloor();
-							continue;
-						}
-						
-						if (elevatorDir == Direction.UP) {
-							if (carCall.passenger.getDestinationFloor() > reversalFloor) {
-								reversalFloor = carCall.passenger.getDestinationFloor();
-							}
-						} else if (elevatorDir == Direction.DOWN) {
-							if (carCall.passenger.getDestinationFloor() < reversalFloor) {
-								reversalFloor = carCall.passenger.getDestinationFloor();
-							}
-						}
-					}
-				}
-				
-				for (PassengerCall hallCall : elevatorData.hallCalls) {
-					if (hallCall.type == PassageType.P2) {
-						if (reversalFloor == -1) {
-							reversalFloor = hallCall.passenger.getArrivalFloor();
-							continue;
-						}
-						
-						if (elevatorDir == Direction.UP) {
-							if (hallCall.passenger.getArrivalFloor() > reversalFloor) {
-								reversalFloor = hallCall.passenger.getArrivalFloor();
-							}
-						} else if (elevatorDir == Direction.DOWN) {
-							if (hallCall.passenger.getArrivalFloor() < reversalFloor) {
-								reversalFloor = hallCall.passenger.getArrivalFloor();
-							}
-						}
-					}
-				}
+				int reversalFloor = this.calculateFirstReversalFloor(elevatorData, elevatorDir);
 				
 				CiBefore.clear();
 				HiBefore.clear();
@@ -727,7 +534,7 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 						int delta = Math.abs(reversalFloor - hallCall.passenger.getArrivalFloor());
 						
 						if (delta < callDelta) {	
-							HiBefore.add(hallCall.passenger.getArrivalFloor());
+							HiBefore.set(hallCall.passenger.getArrivalFloor());
 						}
 					}
 				}
@@ -742,40 +549,7 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 					HiBefore);
 				
 				//Part 3
-				reversalFloor = -1;
-				
-				for (PassengerCall hallCall : elevatorData.hallCalls) {
-					if (reversalFloor == -1) {
-						if (hallCall.type == PassageType.P2) {
-							reversalFloor = hallCall.passenger.getDestinationFloor();
-						} else if (hallCall.type == PassageType.P3) {
-							reversalFloor = hallCall.passenger.getArrivalFloor();
-						}
-						continue;
-					}
-					
-					if (hallCall.type == PassageType.P2) {						
-						if (elevatorDir == Direction.UP) {
-							if (hallCall.passenger.getDestinationFloor() > reversalFloor) {
-								reversalFloor = hallCall.passenger.getDestinationFloor();
-							}
-						} else if (elevatorDir == Direction.DOWN) {
-							if (hallCall.passenger.getDestinationFloor() < reversalFloor) {
-								reversalFloor = hallCall.passenger.getDestinationFloor();
-							}
-						}
-					} else if (hallCall.type == PassageType.P3) {
-						if (elevatorDir == Direction.UP) {
-							if (hallCall.passenger.getArrivalFloor() < reversalFloor) {
-								reversalFloor = hallCall.passenger.getArrivalFloor();
-							}
-						} else if (elevatorDir == Direction.DOWN) {
-							if (hallCall.passenger.getArrivalFloor() > reversalFloor) {
-								reversalFloor = hallCall.passenger.getArrivalFloor();
-							}
-						}
-					}
-				}
+				reversalFloor = this.calculateSecondReversalFloor(elevatorData, elevatorDir);
 				
 				CiBefore.clear();
 				HiBefore.clear();
@@ -786,7 +560,7 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 						int delta = Math.abs(reversalFloor - hallCall.passenger.getArrivalFloor());
 						
 						if (delta < callDelta) {	
-							HiBefore.add(hallCall.passenger.getArrivalFloor());
+							HiBefore.set(hallCall.passenger.getArrivalFloor());
 						}
 					}
 				}
@@ -807,40 +581,29 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 		}
 	}
 	
-	private double calculateTijDelay(Simulator simulator, ElevatorData elevatorData, Passenger newPassenger, PassageType newPassengerCallType, PassengerCall passengerJ) {
-		int numExtraStops = 0;
-		boolean floorExists = false;
-		
-		for (PassengerCall carCall : elevatorData.carCalls) {
-			if (passengerJ.passenger.getArrivalFloor() == carCall.passenger.getDestinationFloor()) {
-				floorExists = true;
-				break;
-			}
-		}
-		
-		if (floorExists) {
-			numExtraStops++;
-		}
-		
-		int delta = 0;
-		
-		//Calculate the reversal floor
-		int currentReversalFloor = -1;
+	/**
+	 * Calculates the first reversal floor, which is the farthest P1 car call or P2 hall call in the direction of the elevator car
+	 * @param elevatorData The elevator data
+	 * @param elevatorDir The direction of the elevator car
+	 * @return The floor or -1 if there are no such calls
+	 */
+	private int calculateFirstReversalFloor(ElevatorData elevatorData, Direction elevatorDir) {
+		int reversalFloor = -1;
 		
 		for (PassengerCall carCall : elevatorData.carCalls) {
 			if (carCall.type == PassageType.P1) {
-				if (currentReversalFloor == -1) {
-					currentReversalFloor = carCall.passenger.getDestinationFloor();
+				if (reversalFloor == -1) {
+					reversalFloor = carCall.passenger.getDestinationFloor();
 					continue;
 				}
 				
-				if (elevatorData.elevator.getDirection() == Direction.UP) {
-					if (carCall.passenger.getDestinationFloor() > currentReversalFloor) {
-						currentReversalFloor = carCall.passenger.getDestinationFloor();
+				if (elevatorDir == Direction.UP) {
+					if (carCall.passenger.getDestinationFloor() > reversalFloor) {
+						reversalFloor = carCall.passenger.getDestinationFloor();
 					}
-				} else if (elevatorData.elevator.getDirection() == Direction.DOWN) {
-					if (carCall.passenger.getDestinationFloor() < currentReversalFloor) {
-						currentReversalFloor = carCall.passenger.getDestinationFloor();
+				} else if (elevatorDir == Direction.DOWN) {
+					if (carCall.passenger.getDestinationFloor() < reversalFloor) {
+						reversalFloor = carCall.passenger.getDestinationFloor();
 					}
 				}
 			}
@@ -848,23 +611,87 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 		
 		for (PassengerCall hallCall : elevatorData.hallCalls) {
 			if (hallCall.type == PassageType.P2) {
-				if (currentReversalFloor == -1) {
-					currentReversalFloor = hallCall.passenger.getArrivalFloor();
+				if (reversalFloor == -1) {
+					reversalFloor = hallCall.passenger.getArrivalFloor();
 					continue;
 				}
 				
-				if (elevatorData.elevator.getDirection() == Direction.UP) {
-					if (hallCall.passenger.getArrivalFloor() > currentReversalFloor) {
-						currentReversalFloor = hallCall.passenger.getArrivalFloor();
+				if (elevatorDir == Direction.UP) {
+					if (hallCall.passenger.getArrivalFloor() > reversalFloor) {
+						reversalFloor = hallCall.passenger.getArrivalFloor();
 					}
-				} else if (elevatorData.elevator.getDirection() == Direction.DOWN) {
-					if (hallCall.passenger.getArrivalFloor() < currentReversalFloor) {
-						currentReversalFloor = hallCall.passenger.getArrivalFloor();
+				} else if (elevatorDir == Direction.DOWN) {
+					if (hallCall.passenger.getArrivalFloor() < reversalFloor) {
+						reversalFloor = hallCall.passenger.getArrivalFloor();
 					}
 				}
 			}
 		}
 		
+		return reversalFloor;
+	}
+	
+	/**
+	 * Calculates the second reversal floor, given by the P2 and P3 hall calls
+	 * @param elevatorData The elevator data
+	 * @param elevatorDir The direction of the elevator car
+	 * @return The floor or -1 if there are no hall calls
+	 */
+	private int calculateSecondReversalFloor(ElevatorData elevatorData, Direction elevatorDir) {
+		int reversalFloor = -1;
+		
+		for (PassengerCall hallCall : elevatorData.hallCalls) {
+			if (reversalFloor == -1) {
+				if (hallCall.type == PassageType.P2) {
+					reversalFloor = hallCall.passenger.getDestinationFloor();
+				} else if (hallCall.type == PassageType.P3) {
+					reversalFloor = hallCall.passenger.getArrivalFloor();
+				}
+				continue;
+			}
+			
+			if (hallCall.type == PassageType.P2) {						
+				if (elevatorDir == Direction.UP) {
+					if (hallCall.passenger.getDestinationFloor() > reversalFloor) {
+						reversalFloor = hallCall.passenger.getDestinationFloor();
+					}
+				} else if (elevatorDir == Direction.DOWN) {
+					if (hallCall.passenger.getDestinationFloor() < reversalFloor) {
+						reversalFloor = hallCall.passenger.getDestinationFloor();
+					}
+				}
+			} else if (hallCall.type == PassageType.P3) {
+				if (elevatorDir == Direction.UP) {
+					if (hallCall.passenger.getArrivalFloor() < reversalFloor) {
+						reversalFloor = hallCall.passenger.getArrivalFloor();
+					}
+				} else if (elevatorDir == Direction.DOWN) {
+					if (hallCall.passenger.getArrivalFloor() > reversalFloor) {
+						reversalFloor = hallCall.passenger.getArrivalFloor();
+					}
+				}
+			}
+		}
+		
+		return reversalFloor;
+	}
+	
+	/**
+	 * Calculates the delay for the hall call J, if the new passenger is assigned to the elevator car.
+	 * The reversal floors and car call floors only depend on the elevator car, so they are calculated once for all hall calls.
+	 */
+	private double calculateTijDelay(ElevatorData elevatorData, Passenger newPassenger, PassageType newPassengerCallType, PassengerCall passengerJ,
+		BitSet carCallFloors, int firstReversalFloor, int secondReversalFloor) {
+		int numExtraStops = 0;
+		boolean floorExists = carCallFloors.get(passengerJ.passenger.getArrivalFloor());
+		
+		if (floorExists) {
+			numExtraStops++;
+		}
+		
+		int delta = 0;
+		int currentReversalFloor = firstReversalFloor;
+		
 		if (passengerJ.type == PassageType.P2 && newPassengerCallType != PassageType.P3) {						
 			if (newPassengerCallType == PassageType.P1) {
 				if (elevatorData.elevator.getDirection() == Direction.UP) {
@@ -912,40 +739,7 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 			
 			//If the passenger did not affect the first reversal floor, calculate if it will affect the second
 			if (delta == 0) {
-				currentReversalFloor = -1;
-				
-				for (PassengerCall hallCall : elevatorData.hallCalls) {
-					if (currentReversalFloor == -1) {
-						if (hallCall.type == PassageType.P2) {
-							currentReversalFloor = hallCall.passenger.getDestinationFloor();
-						} else if (hallCall.type == PassageType.P3) {
-							currentReversalFloor = hallCall.passenger.getArrivalFloor();
-						}
-						continue;
-					}
-					
-					if (hallCall.type == PassageType.P2) {						
-						if (elevatorData.elevator.getDirection() == Direction.UP) {
-							if (hallCall.passenger.getDestinationFloor() > currentReversalFloor) {
-								currentReversalFloor = hallCall.passenger.getDestinationFloor();
-							}
-						} else if (elevatorData.elevator.getDirection() == Direction.DOWN) {
-							if (hallCall.passenger.getDestinationFloor() < currentReversalFloor) {
-								currentReversalFloor = hallCall.passenger.getDestinationFloor();
-							}
-						}
-					} else if (hallCall.type == PassageType.P3) {
-						if (elevatorData.elevator.getDirection() == Direction.UP) {
-							if (hallCall.passenger.getArrivalFloor() < currentReversalFloor) {
-								currentReversalFloor = hallCall.passenger.getArrivalFloor();
-							}
-						} else if (elevatorData.elevator.getDirection() == Direction.DOWN) {
-							if (hallCall.passenger.getArrivalFloor() > currentReversalFloor) {
-								currentReversalFloor = hallCall.passenger.getArrivalFloor();
-							}
-						}
-					}
-				}
+				currentReversalFloor = secondReversalFloor;
 				
 				if (newPassengerCallType == PassageType.P2) {
 					if (elevatorData.elevator.getDirection() == Direction.UP) {
@@ -986,9 +780,29 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 	private double calculateTijSum(Simulator simulator, ElevatorData elevatorData, Passenger newPassenger, PassageType newPassengerCallType) {
 		double sum = 0.0;
 		
+		if (elevatorData.hallCalls.isEmpty()) {
+			return sum;
+		}
+		
+		Direction elevatorDir = elevatorData.elevator.getDirection();
+		int firstReversalFloor = this.calculateFirstReversalFloor(elevatorData, elevatorDir);
+		int secondReversalFloor = this.calculateSecondReversalFloor(elevatorData, elevatorDir);
+		
+		this.carCallFloors.clear();
+		for (PassengerCall carCall : elevatorData.carCalls) {
+			this.carCallFloors.set(carCall.passenger.getDestinationFloor());
+		}
+		
 		for (PassengerCall hallCall : elevatorData.hallCalls) {
 			int nJPass = this.calculateNkPass(simulator, hallCall.passenger);
-			sum += this.calculateTijDelay(simulator, elevatorData, newPassenger, newPassengerCallType, hallCall) * nJPass;
+			sum += this.calculateTijDelay(
+				elevatorData,
+				newPassenger,
+				newPassengerCallType,
+				hallCall,
+				this.carCallFloors,
+				firstReversalFloor,
+				secondReversalFloor) * nJPass;
 		}
 		
 		return sum;
@@ -1018,36 +832,37 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 			}
 		}
 		
-		bestElevatorData.hallCalls.add(new PassengerCall(bestType, passenger));
+		PassengerCall call = new PassengerCall(bestType, passenger);
+		bestElevatorData.hallCalls.add(call);
+		this.callIndex.put(passenger, new CallTuple(bestElevatorData, call));
 	}
 	
 	@Override
 	public void passengerBoarded(Simulator simulator, Elevator elevator, Passenger passenger) {
-		CallTuple callData = this.findCall(passenger);
-		ElevatorData elevatorData = null;
+		CallTuple callData = this.getCall(passenger);
 		
-		if (callData == null) {
-			System.out.println("wololo");
+		if (!callData.elevatorData.hallCalls.remove(callData.call)) {
+			throw new IllegalStateException("The passenger " + passenger + " has already boarded.");
 		}
 		
-		if (callData.elevatorData.elevator == elevator) {
-			elevatorData = callData.elevatorData;
-		} else {
+		ElevatorData elevatorData = callData.elevatorData;
+		if (elevatorData.elevator != elevator) {
 			elevatorData = this.elevatorToData.get(elevator);
+			this.callIndex.put(passenger, new CallTuple(elevatorData, callData.call));
 		}
 		
-		callData.elevatorData.hallCalls.remove(callData.call);
 		elevatorData.carCalls.add(callData.call);
 	}
 	
 	@Override
 	public void passengerExited(Simulator simulator, Elevator elevator, Passenger passenger) {
-		ElevatorData elevatorData = this.elevatorToData.get(elevator);
-		PassengerCall carCall = this.findCarCall(elevatorData, passenger);
+		CallTuple callData = this.getCall(passenger);
 		
-		if (carCall != null) {
-			elevatorData.carCalls.remove(carCall);
+		if (callData.elevatorData.elevator != elevator || !callData.elevatorData.carCalls.remove(callData.call)) {
+			throw new IllegalStateException("The passenger " + passenger + " has no car call in elevator " + elevator.getId() + ".");
 		}
+		
+		this.callIndex.remove(passenger);
 	}
 
 	@Override
@@ -1076,7 +891,7 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 			} else if (elevator.getState() == State.IDLE) {
 				Passenger toHandle = null;
 				if (!elevatorData.hallCalls.isEmpty()) {
-					toHandle = elevatorData.hallCalls.peek().passenger;
+					toHandle = elevatorData.hallCalls.iterator().next().passenger;
 				}
 				
 				if (toHandle != null) {
@@ -1086,6 +901,11 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 		}
 	}
 
+	@Override
+	public boolean isChangeDriven() {
+		return true;
+	}
+	
 	@Override
 	public void onIdle(Simulator simulator, Elevator elevator) {
 
@@ -1107,6 +927,7 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 	@Override
 	public void changedTo(Simulator simulator) {
 		//Clear all queues
+		this.callIndex.clear();
 		for (ElevatorData elevatorData : this.elevators) {
 			elevatorData.carCalls.clear();
 			elevatorData.hallCalls.clear();
@@ -1115,7 +936,9 @@ public class ThreePassageGroupElevator implements SchedulingAlgorithm {
 		//Add for passenger insides elevators
 		for (ElevatorData elevatorData : this.elevators) {
 			for (Passenger passenger : elevatorData.elevator.getPassengers()) {
-				elevatorData.carCalls.add(new PassengerCall(PassageType.P1, passenger));
+				PassengerCall call = new PassengerCall(PassageType.P1, passenger);
+				elevatorData.carCalls.add(call);
+				this.callIndex.put(passenger, new CallTuple(elevatorData, call));
 			}
 		}
 		
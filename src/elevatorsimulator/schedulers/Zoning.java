@@ -161,6 +161,11 @@ public class Zoning implements SchedulingAlgorithm {
 		}
 	}
 
+	@Override
+	public boolean isChangeDriven() {
+		return true;
+	}
+	
 	@Override
 	public void onIdle(Simulator simulator, Elevator elevator) {
 		Zone zone = this.getZone(elevator);